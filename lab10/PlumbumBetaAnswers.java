@@ -1,13 +1,13 @@
-package plumbum_beta;
-
-public class PlumbumBetaAnswers {
-	public static final String answerToQuestion1A = "NullPointerException";
-	public static final String answerToQuestion1B = "SparseIntVector.java:24";
-	public static final String answerToQuestion1C = "Didn't new a list before using it";
-
-	public static final String answerToQuestion2 = "Didn't new a list before using it";
-
-	public static final String answerToQuestion3A = "Objects.java:372";
-	public static final String answerToQuestion3B = "Index 5 out of bounds";
-	public static final String answerToQuestion3C = "SparseIntVector.java:61";
-}
+package plumbum_beta;
+
+public class PlumbumBetaAnswers {
+	public static final String answerToQuestion1A = "NullPointerException";
+	public static final String answerToQuestion1B = "SparseIntVector.java:24";
+	public static final String answerToQuestion1C = "Didn't new a list before using it";
+
+	public static final String answerToQuestion2 = "Didn't new a list before using it";
+
+	public static final String answerToQuestion3A = "Objects.java:372";
+	public static final String answerToQuestion3B = "Index 5 out of bounds";
+	public static final String answerToQuestion3C = "SparseIntVector.java:61";
+}
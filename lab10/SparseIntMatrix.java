@@ -0,0 +1,284 @@
+package plumbum_beta;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Plumbum|Beta v0.0.0.1
+ *
+ * SparseIntMatrix: a class representing a 2 dimensional matrix of integers, optimized for sparse
+ * matrices. The non-zero entries of all rows are stored one row after another in a single pair of
+ * arrays (compressed sparse row form). Products are computed with the rows split among the threads
+ * of the common fork-join pool.
+ */
+public class SparseIntMatrix {
+	/**
+	 * The entries of row r are at positions rowStart[r] .. rowStart[r+1]-1 of columnIndices and
+	 * values.
+	 */
+	private int[] rowStart;
+	/** The columns of the non-zero entries, in increasing order within each row. */
+	private int[] columnIndices;
+	/** The non-zero entries, values[k] being in column columnIndices[k]. */
+	private int[] values;
+	private int rows;
+	private int columns;
+
+	/**
+	 * Rows of the matrix are given to a single thread when they hold at most this many non-zero
+	 * entries in all.
+	 */
+	private static final int GRAIN = 1 << 14;
+
+	/**
+	 * Creates a matrix with the given rows.
+	 * @param rows the rows of the matrix, which must all have the same size
+	 * @throws IllegalArgumentException if the rows do not all have the same size.
+	 */
+	public SparseIntMatrix(SparseIntVector... rows) {
+		int columns = rows.length == 0 ? 0 : rows[0].size();
+		SparseIntVector[] compacted = new SparseIntVector[rows.length];
+		int count = 0;
+		for (int r = 0; r < rows.length; r++) {
+			if (rows[r].size() != columns) {
+				throw new IllegalArgumentException("all rows of a matrix must have the same size");
+			}
+			compacted[r] = rows[r].compacted();
+			count += compacted[r].indices().length;
+		}
+
+		rowStart = new int[rows.length + 1];
+		columnIndices = new int[count];
+		values = new int[count];
+		for (int r = 0; r < rows.length; r++) {
+			int[] indices = compacted[r].indices();
+			System.arraycopy(indices, 0, columnIndices, rowStart[r], indices.length);
+			System.arraycopy(compacted[r].values(), 0, values, rowStart[r], indices.length);
+			rowStart[r + 1] = rowStart[r] + indices.length;
+		}
+		this.rows = rows.length;
+		this.columns = columns;
+	}
+
+	/** Creates a matrix with the given dimensions and arrays, which are not copied. */
+	private SparseIntMatrix(int rows, int columns, int[] rowStart, int[] columnIndices, int[] values) {
+		this.rows = rows;
+		this.columns = columns;
+		this.rowStart = rowStart;
+		this.columnIndices = columnIndices;
+		this.values = values;
+	}
+
+	/**
+	 * Returns the number of rows of the matrix.
+	 * @return the number of rows
+	 */
+	public int rows() {
+		return rows;
+	}
+
+	/**
+	 * Returns the number of columns of the matrix, which is the size of each row.
+	 * @return the number of columns
+	 */
+	public int columns() {
+		return columns;
+	}
+
+	/**
+	 * Returns one row of the matrix.
+	 * @param r the row number, from 0
+	 * @return row r
+	 */
+	public SparseIntVector row(int r) {
+		return new SparseIntVector(columns,
+				Arrays.copyOfRange(columnIndices, rowStart[r], rowStart[r + 1]),
+				Arrays.copyOfRange(values, rowStart[r], rowStart[r + 1]));
+	}
+
+	/**
+	 * Multiplies this matrix by a column vector.
+	 * @param vector the vector, whose size must be the number of columns
+	 * @return an array holding the dot product of each row with vector
+	 * @throws IllegalArgumentException if vector does not have the right size.
+	 */
+	public int[] multiply(int[] vector) {
+		if (vector.length != columns) {
+			throw new IllegalArgumentException("you cannot multiply by a vector of the wrong size");
+		}
+		int[] result = new int[rows];
+		forEachRow(GRAIN, (from, to) -> {
+			for (int r = from; r < to; r++) {
+				int value = 0;
+				for (int k = rowStart[r]; k < rowStart[r + 1]; k++) {
+					value += values[k] * vector[columnIndices[k]];
+				}
+				result[r] = value;
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Multiplies this matrix by a sparse column vector.
+	 * @param vector the vector, whose size must be the number of columns
+	 * @return the vector of the dot products of each row with vector
+	 * @throws IllegalArgumentException if vector does not have the right size.
+	 */
+	public SparseIntVector multiply(SparseIntVector vector) {
+		if (vector.size() != columns) {
+			throw new IllegalArgumentException("you cannot multiply by a vector of the wrong size");
+		}
+		SparseIntVector compacted = vector.compacted();
+		int[] indices = compacted.indices();
+		int[] entries = compacted.values();
+		int[] result = new int[rows];
+		forEachRow(GRAIN, (from, to) -> {
+			for (int r = from; r < to; r++) {
+				result[r] = (int) SparseIntVector.dotLong(columnIndices, values, rowStart[r],
+						rowStart[r + 1], indices, entries, 0, indices.length);
+			}
+		});
+		return new SparseIntVector(result);
+	}
+
+	/**
+	 * Multiplies this matrix by another. Each row of the result is accumulated from the rows of
+	 * other selected by the entries of the same row of this matrix. A sparse similarity join of
+	 * the rows of a matrix m is m.multiply(m.transpose()).
+	 * @param other the matrix on the right, which must have as many rows as this has columns
+	 * @return the product
+	 * @throws IllegalArgumentException if the matrices do not have compatible sizes.
+	 */
+	public SparseIntMatrix multiply(SparseIntMatrix other) {
+		if (other.rows != columns) {
+			throw new IllegalArgumentException("you cannot multiply matrices of incompatible sizes");
+		}
+		int[][] rowColumns = new int[rows][];
+		int[][] rowValues = new int[rows][];
+		forEachRow(Math.max(GRAIN, other.columns), (from, to) -> {
+			int[] sums = new int[other.columns];
+			int[] seen = new int[other.columns];
+			int[] touched = new int[other.columns];
+			for (int r = from; r < to; r++) {
+				int count = 0;
+				for (int k = rowStart[r]; k < rowStart[r + 1]; k++) {
+					int row = columnIndices[k];
+					int value = values[k];
+					for (int j = other.rowStart[row]; j < other.rowStart[row + 1]; j++) {
+						int column = other.columnIndices[j];
+						if (seen[column] != r + 1) {
+							seen[column] = r + 1;
+							sums[column] = 0;
+							touched[count] = column;
+							count += 1;
+						}
+						sums[column] += value * other.values[j];
+					}
+				}
+				Arrays.sort(touched, 0, count);
+				int nonZero = 0;
+				for (int t = 0; t < count; t++) {
+					if (sums[touched[t]] != 0) {
+						nonZero += 1;
+					}
+				}
+				rowColumns[r] = new int[nonZero];
+				rowValues[r] = new int[nonZero];
+				nonZero = 0;
+				for (int t = 0; t < count; t++) {
+					if (sums[touched[t]] != 0) {
+						rowColumns[r][nonZero] = touched[t];
+						rowValues[r][nonZero] = sums[touched[t]];
+						nonZero += 1;
+					}
+				}
+			}
+		});
+
+		int[] start = new int[rows + 1];
+		for (int r = 0; r < rows; r++) {
+			start[r + 1] = start[r] + rowColumns[r].length;
+		}
+		int[] resultColumns = new int[start[rows]];
+		int[] resultValues = new int[start[rows]];
+		for (int r = 0; r < rows; r++) {
+			System.arraycopy(rowColumns[r], 0, resultColumns, start[r], rowColumns[r].length);
+			System.arraycopy(rowValues[r], 0, resultValues, start[r], rowValues[r].length);
+		}
+		return new SparseIntMatrix(rows, other.columns, start, resultColumns, resultValues);
+	}
+
+	/**
+	 * Returns the transpose of this matrix, whose rows are the columns of this one.
+	 * @return the transpose
+	 */
+	public SparseIntMatrix transpose() {
+		int[] start = new int[columns + 1];
+		for (int column : columnIndices) {
+			start[column + 1] += 1;
+		}
+		for (int c = 0; c < columns; c++) {
+			start[c + 1] += start[c];
+		}
+		int[] next = Arrays.copyOf(start, columns);
+		int[] resultColumns = new int[values.length];
+		int[] resultValues = new int[values.length];
+		for (int r = 0; r < rows; r++) {
+			for (int k = rowStart[r]; k < rowStart[r + 1]; k++) {
+				int at = next[columnIndices[k]];
+				next[columnIndices[k]] += 1;
+				resultColumns[at] = r;
+				resultValues[at] = values[k];
+			}
+		}
+		return new SparseIntMatrix(columns, rows, start, resultColumns, resultValues);
+	}
+
+	/**
+	 * Runs body over all rows, split into ranges of consecutive rows that are handed to the common
+	 * fork-join pool, each holding at most grain non-zero entries unless it is a single row.
+	 */
+	private void forEachRow(int grain, RowRange body) {
+		RowTask task = new RowTask(grain, body, 0, rows);
+		if (values.length <= grain) {
+			task.compute();
+		} else {
+			ForkJoinPool.commonPool().invoke(task);
+		}
+	}
+
+	/** Work to be done on a range of rows. */
+	private interface RowRange {
+		/** Does the work for rows from .. to-1. */
+		void run(int from, int to);
+	}
+
+	/** A RowRange applied to some rows, splitting them in half until they are small enough. */
+	private class RowTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int grain;
+		private final RowRange body;
+		private final int from;
+		private final int to;
+
+		RowTask(int grain, RowRange body, int from, int to) {
+			this.grain = grain;
+			this.body = body;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= 1 || rowStart[to] - rowStart[from] <= grain) {
+				body.run(from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new RowTask(grain, body, from, middle), new RowTask(grain, body, middle, to));
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package plumbum_beta;
+
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SparseIntMatrixTest {
+	/** Returns a rows x columns array in which about one entry in every spread is non-zero. */
+	private static int[][] randomDense(Random random, int rows, int columns, int spread) {
+		int[][] dense = new int[rows][columns];
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < columns; c++) {
+				dense[r][c] = random.nextInt(spread) == 0 ? random.nextInt(21) - 10 : 0;
+			}
+		}
+		return dense;
+	}
+
+	private static SparseIntMatrix sparse(int[][] dense) {
+		SparseIntVector[] rows = new SparseIntVector[dense.length];
+		for (int r = 0; r < dense.length; r++) {
+			rows[r] = new SparseIntVector(dense[r]);
+		}
+		return new SparseIntMatrix(rows);
+	}
+
+	private static int[] column(int size, int c) {
+		int[] unit = new int[size];
+		unit[c] = 1;
+		return unit;
+	}
+
+	@Test
+	public void testMultiplyVector() {
+		Random random = new Random(63);
+		int[][] dense = randomDense(random, 3000, 200, 8);
+		int[] x = randomDense(random, 1, 200, 3)[0];
+		int[] expected = new int[dense.length];
+		for (int r = 0; r < dense.length; r++) {
+			for (int c = 0; c < x.length; c++) {
+				expected[r] += dense[r][c] * x[c];
+			}
+		}
+
+		SparseIntMatrix m = sparse(dense);
+		assertEquals(3000, m.rows());
+		assertEquals(200, m.columns());
+		assertArrayEquals(expected, m.multiply(x));
+		SparseIntVector y = m.multiply(new SparseIntVector(x));
+		assertEquals(dense.length, y.size());
+		for (int r = 0; r < dense.length; r++) {
+			assertEquals(expected[r], SparseIntVector.dot(y, new SparseIntVector(column(dense.length, r))));
+			assertEquals(SparseIntVector.dot(new SparseIntVector(dense[r]), new SparseIntVector(x)),
+					SparseIntVector.dot(m.row(r), new SparseIntVector(x)));
+		}
+	}
+
+	@Test
+	public void testMultiplyMatrix() {
+		Random random = new Random(64);
+		int[][] a = randomDense(random, 400, 60, 6);
+		int[][] b = randomDense(random, 60, 90, 6);
+		SparseIntMatrix product = sparse(a).multiply(sparse(b));
+		assertEquals(400, product.rows());
+		assertEquals(90, product.columns());
+		for (int c = 0; c < 90; c++) {
+			int[] expected = new int[400];
+			for (int r = 0; r < 400; r++) {
+				for (int k = 0; k < 60; k++) {
+					expected[r] += a[r][k] * b[k][c];
+				}
+			}
+			assertArrayEquals(expected, product.multiply(column(90, c)));
+		}
+	}
+
+	@Test
+	public void testSimilarityJoin() {
+		Random random = new Random(65);
+		int[][] dense = randomDense(random, 50, 1000, 40);
+		SparseIntMatrix m = sparse(dense);
+		SparseIntMatrix similarity = m.multiply(m.transpose());
+		assertEquals(50, similarity.rows());
+		assertEquals(50, similarity.columns());
+		for (int r = 0; r < 50; r++) {
+			SparseIntVector row = similarity.row(r);
+			for (int s = 0; s < 50; s++) {
+				assertEquals(SparseIntVector.dot(m.row(r), m.row(s)),
+						SparseIntVector.dot(row, new SparseIntVector(column(50, s))));
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRaggedRows() {
+		new SparseIntMatrix(new SparseIntVector(1, 0), new SparseIntVector(0, 0, 2));
+	}
+}
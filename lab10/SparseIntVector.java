@@ -1,92 +1,508 @@
-package plumbum_beta;
-
-import java.util.List;
-import java.util.ArrayList;
-
-/**
- * Plumbum|Beta v0.0.0.1
- *
- * SparseIntVector: a class representing an ordered 1 dimensional vector of integers, optimized
- * for sparse vectors. Sparse vectors are vectors that contain very few non-zero elements.
- *
- * @author Eli Lipsitz
- */
-
-public class SparseIntVector {
-	private List<Entry> entries;
-	private int size;
-
-	public SparseIntVector(int... values) {
-		// replace this comment with something?
-
-		entries = new ArrayList<>();
-
-		for (int i = 0; i < values.length; i++) {
-			if (values[i] != 0) {
-				entries.add(new Entry(i, values[i]));
-			}
-		}
-
-		// replace this comment with something?
-
-		size = values.length;
-
-		// replace this comment with something?
-	}
-
-	/**
-	 * Returns the size of the vector (i.e. the dimension of the vector). This includes zero entries.
-	 * @return the dimension of the vector
-	 */
-	public int size() {
-		return size;
-	}
-
-
-	/**
-	 * Computes the dot product of two SparseIntVectors
-	 * @param a the first vector
-	 * @param b the second vector
-	 * @return the dot product of the two vectors
-	 * @throws IllegalArgumentException if the two vectors do not have the same size.
-	 */
-	public static int dot(SparseIntVector a, SparseIntVector b) {
-		if (a.size() != b.size()) {
-			throw new IllegalArgumentException("you cannot dot vectors of different sizes");
-		}
-		int value = 0;
-		int indexA = 0;
-		int indexB = 0;
-		while (indexA < a.entries.size() && indexB < b.entries.size()) {
-			Entry entryA = a.entries.get(indexA);
-			Entry entryB = b.entries.get(indexB);
-
-			if (entryA.index == entryB.index) {
-				value += entryA.value * entryB.value;
-				indexA += 1;
-				indexB += 1;
-			} else if (entryA.index > entryB.index) {
-				indexB += 1;
-			} else if (entryA.index < entryB.index) {
-				indexA += 1;
-			}
-		}
-
-		return value;
-	}
-
-	private class Entry implements Comparable<Entry> {
-		int index;
-		int value;
-
-		Entry(int index, int value) {
-			this.index = index;
-			this.value = value;
-		}
-
-		@Override
-		public int compareTo(Entry o) {
-			return Integer.compare(index, o.index);
-		}
-	}
-}
+package plumbum_beta;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plumbum|Beta v0.0.0.1
+ *
+ * SparseIntVector: a class representing an ordered 1 dimensional vector of integers, optimized
+ * for sparse vectors. Sparse vectors are vectors that contain very few non-zero elements.
+ *
+ * Vectors can be updated in place. Updates at positions with no entry are kept in a small sorted
+ * buffer, which is merged into the entries when it fills or when compact is called. Methods that
+ * only read a vector never modify it, so a vector that is no longer being updated may be shared
+ * between threads; they work on a merged copy while updates are buffered, so a vector should be
+ * compacted once its updates are done.
+ *
+ * @author Eli Lipsitz
+ */
+
+public class SparseIntVector {
+	/**
+	 * The positions of the entries, in increasing order, apart from those with pending updates.
+	 * Entries set to zero in place stay until the vector is next compacted.
+	 */
+	private int[] indices;
+	/** The entries, values[k] being the entry at indices[k]. */
+	private int[] values;
+	private int size;
+	/** The number of entries in values that are zero. */
+	private int zeros;
+
+	/**
+	 * The entries at positions not in indices, in increasing order of position: pendingValues[k]
+	 * is the entry at pendingIndices[k].
+	 */
+	private int[] pendingIndices = new int[0];
+	private int[] pendingValues = new int[0];
+	/** The number of pending entries. */
+	private int pending;
+
+	/**
+	 * dot searches the larger vector for each entry of the smaller one, rather than stepping
+	 * through both, when the larger has more than this many times as many non-zero entries.
+	 */
+	private static final int GALLOP_RATIO = 32;
+
+	/**
+	 * dotParallel gives a range of positions to a single thread when the two vectors have at most
+	 * this many non-zero entries in it in all.
+	 */
+	private static final int PARALLEL_GRAIN = 1 << 14;
+
+	/**
+	 * Pending entries are merged into the sorted entries once there are as many of them as the
+	 * square root of the number of entries, or this many, whichever is more.
+	 */
+	private static final int MIN_PENDING = 64;
+
+	public SparseIntVector(int... values) {
+		int count = 0;
+		for (int value : values) {
+			if (value != 0) {
+				count += 1;
+			}
+		}
+
+		indices = new int[count];
+		this.values = new int[count];
+		count = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != 0) {
+				indices[count] = i;
+				this.values[count] = values[i];
+				count += 1;
+			}
+		}
+		size = values.length;
+	}
+
+	/**
+	 * Creates a vector of the given size whose non-zero entries are values, at the positions
+	 * indices, which must be in increasing order. The arrays are not copied.
+	 */
+	SparseIntVector(int size, int[] indices, int[] values) {
+		this.indices = indices;
+		this.values = values;
+		this.size = size;
+	}
+
+	/**
+	 * Returns the size of the vector (i.e. the dimension of the vector). This includes zero entries.
+	 * @return the dimension of the vector
+	 */
+	public int size() {
+		return size;
+	}
+
+
+	/**
+	 * Returns one entry of the vector.
+	 * @param index the position of the entry
+	 * @return the entry at index
+	 * @throws IndexOutOfBoundsException if index is not a position in the vector.
+	 */
+	public int get(int index) {
+		checkIndex(index, size);
+		int found = Arrays.binarySearch(indices, index);
+		if (found >= 0) {
+			return values[found];
+		}
+		found = Arrays.binarySearch(pendingIndices, 0, pending, index);
+		return found >= 0 ? pendingValues[found] : 0;
+	}
+
+	/**
+	 * Replaces one entry of the vector.
+	 * @param index the position of the entry
+	 * @param value the new entry
+	 * @throws IndexOutOfBoundsException if index is not a position in the vector.
+	 */
+	public void set(int index, int value) {
+		update(index, value, true);
+	}
+
+	/**
+	 * Adds to one entry of the vector.
+	 * @param index the position of the entry
+	 * @param value the amount to add
+	 * @throws IndexOutOfBoundsException if index is not a position in the vector.
+	 */
+	public void add(int index, int value) {
+		update(index, value, false);
+	}
+
+	/**
+	 * Stores value at index if replace, and adds it there otherwise. An existing entry, in the
+	 * sorted entries or the pending ones, is updated in place; otherwise a new pending entry is
+	 * inserted, first merging the pending entries if there are too many.
+	 */
+	private void update(int index, int value, boolean replace) {
+		checkIndex(index, size);
+		int found = Arrays.binarySearch(indices, index);
+		if (found >= 0) {
+			int old = values[found];
+			values[found] = replace ? value : old + value;
+			zeros += (values[found] == 0 ? 1 : 0) - (old == 0 ? 1 : 0);
+			return;
+		}
+		found = Arrays.binarySearch(pendingIndices, 0, pending, index);
+		if (found >= 0) {
+			pendingValues[found] = replace ? value : pendingValues[found] + value;
+			return;
+		}
+		if (value == 0) {
+			return;
+		}
+		if (pending >= Math.max(MIN_PENDING, (int) Math.sqrt(indices.length))) {
+			compact();
+			found = -1;
+		}
+		if (pending == pendingIndices.length) {
+			int capacity = Math.max(MIN_PENDING, 2 * pending);
+			pendingIndices = Arrays.copyOf(pendingIndices, capacity);
+			pendingValues = Arrays.copyOf(pendingValues, capacity);
+		}
+		int k = -found - 1;
+		System.arraycopy(pendingIndices, k, pendingIndices, k + 1, pending - k);
+		System.arraycopy(pendingValues, k, pendingValues, k + 1, pending - k);
+		pendingIndices[k] = index;
+		pendingValues[k] = value;
+		pending += 1;
+	}
+
+	/**
+	 * Merges the pending entries into the sorted entries and drops the entries that are zero, so
+	 * that the methods that read the vector need not do so on a copy each time they are called.
+	 */
+	public void compact() {
+		SparseIntVector merged = compacted();
+		indices = merged.indices;
+		values = merged.values;
+		zeros = 0;
+		pending = 0;
+	}
+
+	/**
+	 * Returns a vector equal to this one with no pending entries and no entries that are zero:
+	 * this vector if it has none, and otherwise a new one, leaving this vector unchanged.
+	 */
+	SparseIntVector compacted() {
+		if (pending == 0 && zeros == 0) {
+			return this;
+		}
+		int[] mergedIndices = new int[indices.length - zeros + pending];
+		int[] mergedValues = new int[mergedIndices.length];
+		int count = 0;
+		int m = 0;
+		int g = 0;
+		while (m < indices.length || g < pending) {
+			int index;
+			int value;
+			if (g == pending || (m < indices.length && indices[m] < pendingIndices[g])) {
+				index = indices[m];
+				value = values[m];
+				m += 1;
+			} else {
+				index = pendingIndices[g];
+				value = pendingValues[g];
+				g += 1;
+			}
+			if (value != 0) {
+				mergedIndices[count] = index;
+				mergedValues[count] = value;
+				count += 1;
+			}
+		}
+
+		if (count < mergedIndices.length) {
+			mergedIndices = Arrays.copyOf(mergedIndices, count);
+			mergedValues = Arrays.copyOf(mergedValues, count);
+		}
+		return new SparseIntVector(size, mergedIndices, mergedValues);
+	}
+
+	/** Throws IndexOutOfBoundsException unless index is a position in a vector of the given size. */
+	private static void checkIndex(int index, int size) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index " + index + " is not in a vector of size " + size);
+		}
+	}
+
+	/**
+	 * Computes the dot product of two SparseIntVectors
+	 * @param a the first vector
+	 * @param b the second vector
+	 * @return the dot product of the two vectors
+	 * @throws IllegalArgumentException if the two vectors do not have the same size.
+	 */
+	public static int dot(SparseIntVector a, SparseIntVector b) {
+		if (a.size() != b.size()) {
+			throw new IllegalArgumentException("you cannot dot vectors of different sizes");
+		}
+		a = a.compacted();
+		b = b.compacted();
+		return (int) dotLong(a.indices, a.values, 0, a.indices.length,
+				b.indices, b.values, 0, b.indices.length);
+	}
+
+	/**
+	 * Computes the dot product of two SparseIntVectors without overflow, unless it does not fit in
+	 * a long.
+	 * @param a the first vector
+	 * @param b the second vector
+	 * @return the dot product of the two vectors
+	 * @throws IllegalArgumentException if the two vectors do not have the same size.
+	 */
+	public static long dotLong(SparseIntVector a, SparseIntVector b) {
+		if (a.size() != b.size()) {
+			throw new IllegalArgumentException("you cannot dot vectors of different sizes");
+		}
+		a = a.compacted();
+		b = b.compacted();
+		return dotLong(a.indices, a.values, 0, a.indices.length,
+				b.indices, b.values, 0, b.indices.length);
+	}
+
+	/**
+	 * Computes the dot product of two SparseIntVectors as dotLong does, splitting the positions
+	 * into ranges whose partial sums are computed by the threads of the common fork-join pool.
+	 * @param a the first vector
+	 * @param b the second vector
+	 * @return the dot product of the two vectors
+	 * @throws IllegalArgumentException if the two vectors do not have the same size.
+	 */
+	public static long dotParallel(SparseIntVector a, SparseIntVector b) {
+		if (a.size() != b.size()) {
+			throw new IllegalArgumentException("you cannot dot vectors of different sizes");
+		}
+		a = a.compacted();
+		b = b.compacted();
+		DotTask task = new DotTask(a, b, 0, a.indices.length, 0, b.indices.length);
+		if (a.indices.length + b.indices.length <= PARALLEL_GRAIN) {
+			return task.compute();
+		}
+		return ForkJoinPool.commonPool().invoke(task);
+	}
+
+	/**
+	 * Returns the positions of the non-zero entries, in increasing order. The array is not a copy
+	 * if the vector is compacted, and must not be modified.
+	 */
+	int[] indices() {
+		return compacted().indices;
+	}
+
+	/**
+	 * Returns the non-zero entries, in the order of indices(). The array is not a copy if the
+	 * vector is compacted, and must not be modified.
+	 */
+	int[] values() {
+		return compacted().values;
+	}
+
+	/**
+	 * Computes the dot product, without overflow, of two vectors of the same size given by the
+	 * non-zero entries valuesA[fromA .. toA-1] at positions indicesA[fromA .. toA-1] and
+	 * valuesB[fromB .. toB-1] at positions indicesB[fromB .. toB-1], positions being in increasing
+	 * order. Its low 32 bits are the int dot product, overflow and all.
+	 */
+	static long dotLong(int[] indicesA, int[] valuesA, int fromA, int toA,
+			int[] indicesB, int[] valuesB, int fromB, int toB) {
+		if (toA - fromA > toB - fromB) {
+			return dotLong(indicesB, valuesB, fromB, toB, indicesA, valuesA, fromA, toA);
+		}
+		if ((long) (toA - fromA) * GALLOP_RATIO < toB - fromB) {
+			return gallopDot(indicesA, valuesA, fromA, toA, indicesB, valuesB, fromB, toB);
+		}
+		return mergeDot(indicesA, valuesA, fromA, toA, indicesB, valuesB, fromB, toB);
+	}
+
+	/**
+	 * Computes the dot product of two vectors given as for dotLong by stepping through the non-zero
+	 * entries of both in order.
+	 */
+	private static long mergeDot(int[] indicesA, int[] valuesA, int fromA, int toA,
+			int[] indicesB, int[] valuesB, int fromB, int toB) {
+		long value = 0;
+		int indexA = fromA;
+		int indexB = fromB;
+		while (indexA < toA && indexB < toB) {
+			int positionA = indicesA[indexA];
+			int positionB = indicesB[indexB];
+
+			if (positionA == positionB) {
+				value += (long) valuesA[indexA] * valuesB[indexB];
+				indexA += 1;
+				indexB += 1;
+			} else if (positionA > positionB) {
+				indexB += 1;
+			} else {
+				indexA += 1;
+			}
+		}
+
+		return value;
+	}
+
+	/**
+	 * Computes the dot product of two vectors given as for dotLong, where the first (small) has far
+	 * fewer non-zero entries than the second (large), by searching large for each entry of small.
+	 * Each search gallops forward from where the last one ended, then finishes with a binary search.
+	 */
+	private static long gallopDot(int[] indicesS, int[] valuesS, int fromS, int toS,
+			int[] indicesL, int[] valuesL, int fromL, int toL) {
+		long value = 0;
+		int low = fromL;
+		for (int indexS = fromS; indexS < toS && low < toL; indexS++) {
+			int position = indicesS[indexS];
+			int step = 1;
+			int high = low;
+			while (high < toL && indicesL[high] < position) {
+				low = high + 1;
+				high += step;
+				step *= 2;
+			}
+			high = Math.min(high + 1, toL);
+			int found = Arrays.binarySearch(indicesL, low, high, position);
+			if (found >= 0) {
+				value += (long) valuesS[indexS] * valuesL[found];
+				low = found + 1;
+			} else {
+				low = -found - 1;
+			}
+		}
+
+		return value;
+	}
+
+	/**
+	 * Returns the first of indices[from .. to-1], which are in increasing order, that is at least
+	 * position, or to if there is none.
+	 */
+	private static int lowerBound(int[] indices, int from, int to, int position) {
+		int found = Arrays.binarySearch(indices, from, to, position);
+		return found >= 0 ? found : -found - 1;
+	}
+
+	/**
+	 * The dot product of the entries of two vectors at positions in some range, those of a being
+	 * at fromA .. toA-1 and those of b at fromB .. toB-1. While they are too many, the range is
+	 * split at the middle entry of whichever vector has more entries in it.
+	 */
+	private static class DotTask extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+
+		private final SparseIntVector a;
+		private final SparseIntVector b;
+		private final int fromA;
+		private final int toA;
+		private final int fromB;
+		private final int toB;
+
+		DotTask(SparseIntVector a, SparseIntVector b, int fromA, int toA, int fromB, int toB) {
+			this.a = a;
+			this.b = b;
+			this.fromA = fromA;
+			this.toA = toA;
+			this.fromB = fromB;
+			this.toB = toB;
+		}
+
+		@Override
+		protected Long compute() {
+			if (fromA == toA || fromB == toB) {
+				return 0L;
+			}
+			if ((toA - fromA) + (toB - fromB) <= PARALLEL_GRAIN) {
+				return dotLong(a.indices, a.values, fromA, toA, b.indices, b.values, fromB, toB);
+			}
+			int middleA;
+			int middleB;
+			if (toA - fromA >= toB - fromB) {
+				middleA = (fromA + toA) >>> 1;
+				middleB = lowerBound(b.indices, fromB, toB, a.indices[middleA]);
+			} else {
+				middleB = (fromB + toB) >>> 1;
+				middleA = lowerBound(a.indices, fromA, toA, b.indices[middleB]);
+			}
+			DotTask left = new DotTask(a, b, fromA, middleA, fromB, middleB);
+			DotTask right = new DotTask(a, b, middleA, toA, middleB, toB);
+			left.fork();
+			long sum = right.compute();
+			return sum + left.join();
+		}
+	}
+
+	/**
+	 * Builds a SparseIntVector from its entries, given in any order, without a dense array of its
+	 * size. Entries given for the same position are added together.
+	 */
+	public static class Builder {
+		private final int size;
+		/** The entries given, each as its position in the high 32 bits and value in the low. */
+		private long[] entries = new long[MIN_PENDING];
+		private int count;
+
+		/**
+		 * Creates a builder for a vector with no entries.
+		 * @param size the size of the vector built
+		 * @throws IllegalArgumentException if size is negative.
+		 */
+		public Builder(int size) {
+			if (size < 0) {
+				throw new IllegalArgumentException("a vector cannot have negative size");
+			}
+			this.size = size;
+		}
+
+		/**
+		 * Adds to one entry of the vector built.
+		 * @param index the position of the entry
+		 * @param value the amount to add
+		 * @return this builder, for easy chaining
+		 * @throws IndexOutOfBoundsException if index is not a position in the vector.
+		 */
+		public Builder add(int index, int value) {
+			checkIndex(index, size);
+			if (value == 0) {
+				return this;
+			}
+			if (count == entries.length) {
+				entries = Arrays.copyOf(entries, 2 * count);
+			}
+			entries[count] = ((long) index << 32) | (value & 0xFFFFFFFFL);
+			count += 1;
+			return this;
+		}
+
+		/**
+		 * Returns a vector with the entries added so far.
+		 * @return the vector
+		 */
+		public SparseIntVector build() {
+			Arrays.sort(entries, 0, count);
+			int[] indices = new int[count];
+			int[] values = new int[count];
+			int nonZero = 0;
+			int k = 0;
+			while (k < count) {
+				int index = (int) (entries[k] >>> 32);
+				int value = 0;
+				while (k < count && (int) (entries[k] >>> 32) == index) {
+					value += (int) entries[k];
+					k += 1;
+				}
+				if (value != 0) {
+					indices[nonZero] = index;
+					values[nonZero] = value;
+					nonZero += 1;
+				}
+			}
+			return new SparseIntVector(size, Arrays.copyOf(indices, nonZero),
+					Arrays.copyOf(values, nonZero));
+		}
+	}
+}
@@ -1,32 +1,197 @@
-package plumbum_beta;
-
-import org.junit.Test;
-import static org.junit.Assert.*;
-
-public class SparseIntVectorTest {
-	@Test
-	public void testDot() {
-		SparseIntVector a = new SparseIntVector(0, 2, 0, 1, 0, 0, -10, 6, 0, 0, 0, 40);
-		SparseIntVector b = new SparseIntVector(0, 0, 0, 4, 0, 3, 18, 0, 0, 0, 9, 10);
-		SparseIntVector c = new SparseIntVector(0, 0, 43, 0, 0, 23, 0, 0, 0, -14, 0, 0);
-
-		assertEquals(224, SparseIntVector.dot(a, b));
-		assertEquals(69, SparseIntVector.dot(b, c));
-		assertEquals(0, SparseIntVector.dot(a, c));
-
-		assertTrue(SparseIntVector.dot(a, b) == SparseIntVector.dot(b, a));
-	}
-
-	@Test
-	public void testSize() {
-		SparseIntVector a = new SparseIntVector(0, 2, 0);
-		SparseIntVector b = new SparseIntVector(0, 0, 0, 0, 0, 0);
-		SparseIntVector c = new SparseIntVector(1, 2, 3, 5, 19, 29, 10, 58, 128);
-		SparseIntVector d = new SparseIntVector();
-
-		assertEquals(3, a.size());
-		assertEquals(6, b.size());
-		assertEquals(9, c.size());
-		assertEquals(0, d.size());
-	}
-}
+package plumbum_beta;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SparseIntVectorTest {
+	@Test
+	public void testDot() {
+		SparseIntVector a = new SparseIntVector(0, 2, 0, 1, 0, 0, -10, 6, 0, 0, 0, 40);
+		SparseIntVector b = new SparseIntVector(0, 0, 0, 4, 0, 3, 18, 0, 0, 0, 9, 10);
+		SparseIntVector c = new SparseIntVector(0, 0, 43, 0, 0, 23, 0, 0, 0, -14, 0, 0);
+
+		assertEquals(224, SparseIntVector.dot(a, b));
+		assertEquals(69, SparseIntVector.dot(b, c));
+		assertEquals(0, SparseIntVector.dot(a, c));
+
+		assertTrue(SparseIntVector.dot(a, b) == SparseIntVector.dot(b, a));
+	}
+
+	@Test
+	public void testDotLarge() {
+		Random random = new Random(61);
+		int[] x = new int[100000];
+		int[] y = new int[x.length];
+		for (int i = 0; i < x.length; i++) {
+			x[i] = random.nextInt(20) == 0 ? random.nextInt(201) - 100 : 0;
+			y[i] = random.nextInt(3) == 0 ? random.nextInt(201) - 100 : 0;
+		}
+		int expected = 0;
+		for (int i = 0; i < x.length; i++) {
+			expected += x[i] * y[i];
+		}
+
+		SparseIntVector a = new SparseIntVector(x);
+		SparseIntVector b = new SparseIntVector(y);
+		assertEquals(expected, SparseIntVector.dot(a, b));
+		assertEquals(expected, SparseIntVector.dot(b, a));
+		assertEquals(0, SparseIntVector.dot(a, new SparseIntVector(new int[x.length])));
+	}
+
+	@Test
+	public void testDotSkewed() {
+		Random random = new Random(62);
+		int[] x = new int[100000];
+		int[] y = new int[x.length];
+		for (int i = 0; i < x.length; i++) {
+			y[i] = random.nextInt(2) == 0 ? random.nextInt(201) - 100 : 0;
+		}
+		for (int k = 0; k < 10; k++) {
+			x[random.nextInt(x.length)] = random.nextInt(201) - 100;
+		}
+		x[0] = 3;
+		x[x.length - 1] = -7;
+		y[0] = 5;
+		y[x.length - 1] = 11;
+		int expected = 0;
+		for (int i = 0; i < x.length; i++) {
+			expected += x[i] * y[i];
+		}
+
+		SparseIntVector a = new SparseIntVector(x);
+		SparseIntVector b = new SparseIntVector(y);
+		assertEquals(expected, SparseIntVector.dot(a, b));
+		assertEquals(expected, SparseIntVector.dot(b, a));
+		assertEquals(0, SparseIntVector.dot(new SparseIntVector(new int[x.length]), b));
+	}
+
+	@Test
+	public void testDotLong() {
+		SparseIntVector a = new SparseIntVector(0, 1 << 20, 0, -(1 << 30), 7, 0);
+		SparseIntVector b = new SparseIntVector(5, 1 << 20, 3, 1 << 30, 9, 0);
+		long expected = (1L << 40) - (1L << 60) + 63;
+
+		assertEquals(expected, SparseIntVector.dotLong(a, b));
+		assertEquals((int) expected, SparseIntVector.dot(a, b));
+		assertEquals(expected, SparseIntVector.dotParallel(a, b));
+	}
+
+	@Test
+	public void testDotParallel() {
+		Random random = new Random(66);
+		int[] x = new int[1000000];
+		int[] y = new int[x.length];
+		int[] z = new int[x.length];
+		for (int i = 0; i < x.length; i++) {
+			x[i] = random.nextInt(4) == 0 ? random.nextInt() : 0;
+			y[i] = random.nextInt(3) == 0 ? random.nextInt() : 0;
+			z[i] = random.nextInt(1000) == 0 ? random.nextInt(201) - 100 : 0;
+		}
+		y[x.length - 1] = 1;
+		x[x.length - 1] = 1;
+
+		SparseIntVector a = new SparseIntVector(x);
+		SparseIntVector b = new SparseIntVector(y);
+		SparseIntVector c = new SparseIntVector(z);
+		assertEquals(SparseIntVector.dotLong(a, b), SparseIntVector.dotParallel(a, b));
+		assertEquals(SparseIntVector.dotLong(b, a), SparseIntVector.dotParallel(b, a));
+		assertEquals(SparseIntVector.dotLong(a, c), SparseIntVector.dotParallel(c, a));
+		assertEquals(SparseIntVector.dot(a, b), (int) SparseIntVector.dotParallel(a, b));
+	}
+
+	@Test
+	public void testBuilder() {
+		SparseIntVector a = new SparseIntVector.Builder(12)
+				.add(11, 40).add(7, 6).add(1, 2).add(6, -4).add(3, 1).add(6, -6).add(5, 8).add(5, -8)
+				.build();
+		SparseIntVector b = new SparseIntVector(0, 0, 0, 4, 0, 3, 18, 0, 0, 0, 9, 10);
+
+		assertEquals(12, a.size());
+		assertEquals(224, SparseIntVector.dot(a, b));
+		assertEquals(-10, a.get(6));
+		assertEquals(0, a.get(5));
+		assertEquals(0, new SparseIntVector.Builder(1000000000).build().get(999999999));
+	}
+
+	@Test
+	public void testUpdate() {
+		Random random = new Random(67);
+		int[] expected = new int[5000];
+		SparseIntVector a = new SparseIntVector(new int[expected.length]);
+		for (int n = 0; n < 20000; n++) {
+			int i = random.nextInt(expected.length);
+			int value = random.nextInt(5) - 2;
+			if (random.nextBoolean()) {
+				a.set(i, value);
+				expected[i] = value;
+			} else {
+				a.add(i, value);
+				expected[i] += value;
+			}
+			if (n % 1000 == 0) {
+				assertEquals(SparseIntVector.dot(new SparseIntVector(expected), new SparseIntVector(expected)),
+						SparseIntVector.dot(a, a));
+			}
+			if (n % 3000 == 0) {
+				a.compact();
+			}
+		}
+
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], a.get(i));
+		}
+		int[] ones = new int[expected.length];
+		Arrays.fill(ones, 1);
+		int sum = 0;
+		for (int value : expected) {
+			sum += value;
+		}
+		assertEquals(sum, SparseIntVector.dot(a, new SparseIntVector(ones)));
+	}
+
+	@Test
+	public void testCompact() {
+		SparseIntVector a = new SparseIntVector(0, 2, 0, 1, 0, 0, -10, 6);
+		a.set(3, 0);
+		a.add(6, 10);
+		a.set(5, 7);
+		a.add(2, 4);
+		a.add(2, -4);
+		assertEquals(0, a.get(2));
+		assertEquals(7, a.get(5));
+		assertArrayEquals(new int[] {1, 5, 7}, a.indices());
+		assertArrayEquals(new int[] {2, 7, 6}, a.values());
+		assertNotSame(a.indices(), a.indices());
+
+		a.compact();
+		assertSame(a.indices(), a.indices());
+		assertArrayEquals(new int[] {1, 5, 7}, a.indices());
+		assertArrayEquals(new int[] {2, 7, 6}, a.values());
+
+		SparseIntVector b = new SparseIntVector(4, 0, 5);
+		b.set(0, 0);
+		assertArrayEquals(new int[] {2}, new SparseIntMatrix(b).row(0).indices());
+		assertEquals(25, SparseIntVector.dot(b, b));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testSetOutOfBounds() {
+		new SparseIntVector(0, 1, 0).set(3, 1);
+	}
+
+	@Test
+	public void testSize() {
+		SparseIntVector a = new SparseIntVector(0, 2, 0);
+		SparseIntVector b = new SparseIntVector(0, 0, 0, 0, 0, 0);
+		SparseIntVector c = new SparseIntVector(1, 2, 3, 5, 19, 29, 10, 58, 128);
+		SparseIntVector d = new SparseIntVector();
+
+		assertEquals(3, a.size());
+		assertEquals(6, b.size());
+		assertEquals(9, c.size());
+		assertEquals(0, d.size());
+	}
+}
@@ -1,5 +1,7 @@
 package enigma;
 
+import java.util.Arrays;
+
 import static enigma.EnigmaException.error;
 
 /** An alphabet of encodable characters.  Provides a mapping from characters
@@ -13,6 +15,27 @@ class Alphabet {
 
     Alphabet(String chars) {
         this._chars = chars;
+        char max = 0;
+        for (int i = 0; i < chars.length(); i++) {
+            max = (char) Math.max(max, chars.charAt(i));
+        }
+        if (max < DENSE_LIMIT) {
+            _index = new int[max + 1];
+            Arrays.fill(_index, -1);
+            for (int i = chars.length() - 1; i >= 0; i--) {
+                _index[chars.charAt(i)] = i;
+            }
+            _sorted = null;
+            _sortedIndex = null;
+        } else {
+            _index = null;
+            _sorted = chars.toCharArray();
+            Arrays.sort(_sorted);
+            _sortedIndex = new int[_sorted.length];
+            for (int k = 0; k < _sorted.length; k++) {
+                _sortedIndex[k] = chars.indexOf(_sorted[k]);
+            }
+        }
     }
 
     /** A default alphabet of all upper-case characters. */
@@ -27,25 +50,49 @@ class Alphabet {
 
     /** Returns true if preprocess(CH) is in this alphabet. */
     boolean contains(char ch) {
-        return _chars.contains(String.valueOf(ch));
+        return lookup(ch) >= 0;
     }
 
     /** Returns character number INDEX in the alphabet, where
      *  0 <= INDEX < size(). */
     char toChar(int index) {
-        return (char) _chars.charAt(index);
+        return _chars.charAt(index);
     }
 
     /** Returns the index of character preprocess(CH), which must be in
      *  the alphabet. This is the inverse of toChar(). */
     int toInt(char ch) {
-        if (!contains(ch)) {
+        int k = lookup(ch);
+        if (k < 0) {
             throw error("The character is not in alphabet in A");
         }
-        return _chars.indexOf(ch);
+        return k;
+    }
+
+    /** Returns the index of CH, or -1 if CH is not in the alphabet. */
+    private int lookup(char ch) {
+        if (_index != null) {
+            return ch < _index.length ? _index[ch] : -1;
+        }
+        int k = Arrays.binarySearch(_sorted, ch);
+        return k < 0 ? -1 : _sortedIndex[k];
     }
 
+    /** Characters at or above this value are looked up by binary search
+     *  instead of through a table indexed by character. */
+    private static final int DENSE_LIMIT = 1024;
+
     /** contains in alphabet. */
     private String _chars;
 
+    /** Index of each character in _chars, indexed by character, with -1
+     *  for characters not in the alphabet. Null for wide alphabets. */
+    private final int[] _index;
+
+    /** The characters of a wide alphabet, in sorted order. */
+    private final char[] _sorted;
+
+    /** Index in _chars of each character in _sorted. */
+    private final int[] _sortedIndex;
+
 }
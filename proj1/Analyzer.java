@@ -0,0 +1,266 @@
+package enigma;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/** A search for the settings under which a ciphertext was produced.  The
+ *  search tries every allowed choice of rotors, and every setting of
+ *  each rotor that is not fixed, with all rings at their first setting,
+ *  scoring each decryption.  It then refines the best of these by trying
+ *  every ring of the two rightmost moving rotors, adjusting their
+ *  settings so that their wirings stay aligned.  Rotor orders and
+ *  settings of the leftmost free slot are searched concurrently, each
+ *  task on its own compiled machine.
+ *  @author Yiwen Feng
+ */
+class Analyzer {
+
+    /** An analyzer for messages from machines configured as CONFIG. */
+    Analyzer(Machine config) {
+        _space = new SearchSpace(config);
+        _alphabet = config.alphabet();
+        _size = _alphabet.size();
+        _slots = config.numRotors();
+        _left = _slots - config.numPawls();
+    }
+
+    /** Allow only the rotors named NAMES in slot SLOT. */
+    void restrict(int slot, String... names) {
+        _space.restrict(slot, names);
+    }
+
+    /** Try only SETTING for the rotor in slot SLOT. */
+    void fixSetting(int slot, char setting) {
+        _space.fixSetting(slot, setting);
+    }
+
+    /** Assume the plugboard has the cycles CYCLES. */
+    void setPlugboard(String cycles) {
+        _plugboard = cycles;
+    }
+
+    /** Call LISTENER, from any thread, with each candidate that is the
+     *  best found so far. */
+    void setListener(Consumer<Candidate> listener) {
+        _listener = listener;
+    }
+
+    /** Return the K best candidates for the settings that produced
+     *  CIPHERTEXT, whose blanks are ignored, according to SCORER, best
+     *  first. */
+    List<Candidate> search(String ciphertext, Scorer scorer, int k) {
+        int[] cipher = ciphertext.chars().filter(c -> c != ' ')
+            .map(c -> _alphabet.toInt((char) c)).toArray();
+        List<String[]> orders = _space.orders();
+        AtomicReference<Candidate> best = new AtomicReference<>();
+        TopK found = IntStream.range(0, _space.numTasks(orders.size()))
+            .parallel()
+            .mapToObj(t -> {
+                TopK top = searchPositions(_space.order(orders, t), t,
+                                           cipher, scorer, k);
+                report(top, best);
+                return top;
+            })
+            .collect(() -> new TopK(k), TopK::merge, TopK::merge);
+        if (_slots - _left < 2) {
+            return found.sorted();
+        }
+        List<Candidate> coarse = found.sorted();
+        return IntStream.range(0, coarse.size()).parallel()
+            .mapToObj(i -> {
+                TopK top = searchRings(coarse.get(i), cipher, scorer, k);
+                report(top, best);
+                return top;
+            })
+            .collect(() -> new TopK(k), TopK::merge, TopK::merge)
+            .sorted();
+    }
+
+    /** Return the K best candidates using the rotors ORDER, with all rings
+     *  at 0, trying the settings of task TASK of my search space.  CIPHER
+     *  is the ciphertext and SCORER scores its decryptions. */
+    private TopK searchPositions(String[] order, int task, int[] cipher,
+                                 Scorer scorer, int k) {
+        CompiledMachine machine = _space.compile(order, _plugboard);
+        int[] settings = _space.start(task);
+        int[] plain = new int[cipher.length];
+        int[] rings = new int[_slots];
+        TopK top = new TopK(k);
+        do {
+            for (int s = 1; s < _slots; s++) {
+                machine.set(s, settings[s]);
+            }
+            machine.convert(cipher, cipher.length, plain);
+            double score = scorer.score(plain, cipher.length);
+            if (top.accepts(score)) {
+                top.add(new Candidate(order, settings, rings, score));
+            }
+        } while (_space.next(settings));
+        return top;
+    }
+
+    /** Return the K best candidates differing from CANDIDATE only in the
+     *  rings of its two rightmost moving rotors, but never the leftmost
+     *  one, with their settings changed by the same amounts.  CIPHER is
+     *  the ciphertext and SCORER scores its decryptions. */
+    private TopK searchRings(Candidate candidate, int[] cipher,
+                             Scorer scorer, int k) {
+        int first = Math.max(_left + 1, _slots - 2);
+        CompiledMachine machine =
+            _space.compile(candidate._rotors, _plugboard);
+        int[] plain = new int[cipher.length];
+        int[] rings = new int[_slots];
+        int[] settings = new int[_slots];
+        TopK top = new TopK(k);
+        while (true) {
+            for (int s = 1; s < _slots; s++) {
+                settings[s] = (candidate._settings[s] + rings[s]) % _size;
+                machine.setRing(s, rings[s]);
+                machine.set(s, settings[s]);
+            }
+            machine.convert(cipher, cipher.length, plain);
+            double score = scorer.score(plain, cipher.length);
+            if (top.accepts(score)) {
+                top.add(new Candidate(candidate._rotors, settings, rings,
+                                      score));
+            }
+            int j = _slots - 1;
+            while (j >= first && rings[j] == _size - 1) {
+                rings[j] = 0;
+                j--;
+            }
+            if (j < first) {
+                return top;
+            }
+            rings[j]++;
+        }
+    }
+
+    /** Pass the best of TOP to the listener if it beats BEST, which it
+     *  then replaces. */
+    private void report(TopK top, AtomicReference<Candidate> best) {
+        Candidate c = top.best();
+        if (_listener == null || c == null) {
+            return;
+        }
+        Candidate old = best.get();
+        while (old == null || c._score > old._score) {
+            if (best.compareAndSet(old, c)) {
+                _listener.accept(c);
+                return;
+            }
+            old = best.get();
+        }
+    }
+
+    /** A choice of rotors, settings and rings, with its score. */
+    class Candidate {
+
+        /** A candidate with rotors ROTORS, settings SETTINGS[1 ..], rings
+         *  RINGS[1 ..] and score SCORE. */
+        Candidate(String[] rotors, int[] settings, int[] rings,
+                  double score) {
+            _rotors = rotors;
+            _settings = settings.clone();
+            _rings = rings.clone();
+            _score = score;
+        }
+
+        /** Return my score. */
+        double score() {
+            return _score;
+        }
+
+        /** Return my setting line, in the form read by Main. */
+        @Override
+        public String toString() {
+            return _space.settingLine(_rotors, _settings, _rings, _plugboard);
+        }
+
+        /** Names of my rotors, by slot. */
+        private final String[] _rotors;
+        /** My rotor settings, by slot. */
+        private final int[] _settings;
+        /** My ring settings, by slot. */
+        private final int[] _rings;
+        /** My score. */
+        private final double _score;
+    }
+
+    /** The best of the candidates added to it, up to a fixed number. */
+    private static class TopK {
+
+        /** A TopK keeping the best K candidates. */
+        TopK(int k) {
+            _k = k;
+        }
+
+        /** Return true iff a candidate with score SCORE would be kept. */
+        boolean accepts(double score) {
+            return _heap.size() < _k || score > _heap.peek()._score;
+        }
+
+        /** Add C, dropping the worst candidate if there are too many. */
+        void add(Candidate c) {
+            _heap.add(c);
+            if (_heap.size() > _k) {
+                _heap.poll();
+            }
+        }
+
+        /** Add the candidates of OTHER to mine, and return me. */
+        TopK merge(TopK other) {
+            for (Candidate c : other._heap) {
+                if (accepts(c._score)) {
+                    add(c);
+                }
+            }
+            return this;
+        }
+
+        /** Return my best candidate, or null if I have none. */
+        Candidate best() {
+            Candidate result = null;
+            for (Candidate c : _heap) {
+                if (result == null || c._score > result._score) {
+                    result = c;
+                }
+            }
+            return result;
+        }
+
+        /** Return my candidates, best first. */
+        List<Candidate> sorted() {
+            List<Candidate> result = new ArrayList<>(_heap);
+            result.sort((a, b) -> Double.compare(b._score, a._score));
+            return Collections.unmodifiableList(result);
+        }
+
+        /** Number of candidates kept. */
+        private final int _k;
+        /** The candidates kept, worst first. */
+        private final PriorityQueue<Candidate> _heap =
+            new PriorityQueue<>((a, b) -> Double.compare(a._score, b._score));
+    }
+
+    /** The rotor orders and settings searched. */
+    private final SearchSpace _space;
+    /** Alphabet of the machines analyzed. */
+    private final Alphabet _alphabet;
+    /** Size of _alphabet. */
+    private final int _size;
+    /** Number of rotor slots. */
+    private final int _slots;
+    /** Slot of the leftmost moving rotor. */
+    private final int _left;
+    /** Cycles of the plugboard assumed. */
+    private String _plugboard = "";
+    /** Receiver of improving candidates, or null. */
+    private Consumer<Candidate> _listener;
+
+}
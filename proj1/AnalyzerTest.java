@@ -0,0 +1,121 @@
+package enigma;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static enigma.TestUtils.*;
+
+/** The suite of all JUnit tests for the Analyzer, Scorer and Bombe
+ *  classes.
+ *  @author Yiwen Feng
+ */
+public class AnalyzerTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    /* ***** TESTING UTILITIES ***** */
+
+    /** A known plaintext. */
+    private static final String PLAIN =
+        "FROM HIS SHOULDER HIAWATHA TOOK THE CAMERA OF ROSEWOOD";
+
+    /** Return an analyzer of naval machines searching only the orders of
+     *  rotors III, IV and I behind B and Beta, with Beta at A. */
+    private static Analyzer analyzer() {
+        Analyzer result = new Analyzer(MachineTest.navalMachine());
+        result.restrict(0, "B");
+        result.restrict(1, "Beta");
+        for (int s = 2; s < 5; s++) {
+            result.restrict(s, "III", "IV", "I");
+        }
+        result.fixSetting(1, 'A');
+        return result;
+    }
+
+    /** Return the conversion of MSG on a naval machine set up by the
+     *  setting line SETTING, which has no plugboard. */
+    private static String convert(String setting, String msg) {
+        String[] words = setting.split(" ");
+        String[] rotors = Arrays.copyOfRange(words, 1, 6);
+        return MachineTest.setUp(MachineTest.navalMachine(), rotors,
+                                 words[6], words[7], "").convert(msg);
+    }
+
+    /* ***** TESTS ***** */
+
+    @Test
+    public void checkCribSearch() {
+        String setting = "* B Beta I III IV AQMV AAJF";
+        String cipher = convert(setting, PLAIN);
+        Analyzer analyzer = analyzer();
+        StringBuilder reported = new StringBuilder();
+        analyzer.setListener(c -> {
+            synchronized (reported) {
+                reported.append(c).append('\n');
+            }
+        });
+        List<Analyzer.Candidate> found =
+            analyzer.search(cipher, Scorer.crib(UPPER, PLAIN), 5);
+        assertEquals(5, found.size());
+        assertEquals(PLAIN.replace(" ", "").length(), found.get(0).score(),
+                     0);
+        assertEquals(PLAIN.replace(" ", ""),
+                     convert(found.get(0).toString(), cipher));
+        for (int i = 1; i < found.size(); i++) {
+            assertTrue(found.get(i - 1).score() >= found.get(i).score());
+        }
+        assertTrue(reported.toString().contains(found.get(0).toString()));
+    }
+
+    @Test
+    public void checkBombe() {
+        String plug = "(BY) (EX) (HQ) (IP) (RT)";
+        Machine m = MachineTest.setUp(MachineTest.navalMachine(),
+                                      new String[] { "B", "Beta", "III", "IV",
+                                                     "I" },
+                                      "AXLE", "AAAA", plug);
+        String cipher = m.convert("WETTER VORHERSAGE " + PLAIN);
+        Bombe bombe = new Bombe(MachineTest.navalMachine(), PLAIN, cipher,
+                                16);
+        bombe.restrict(0, "B");
+        bombe.restrict(1, "Beta");
+        for (int s = 2; s < 5; s++) {
+            bombe.restrict(s, "III", "IV", "I");
+        }
+        bombe.fixSetting(1, 'A');
+        List<Bombe.Stop> stops = bombe.run();
+        assertTrue(stops.size() < 100);
+        Bombe.Stop found = null;
+        for (Bombe.Stop stop : stops) {
+            if (stop.toString().startsWith("* B Beta III IV I AXLE AAAA")) {
+                found = stop;
+            }
+        }
+        assertNotNull(found);
+        String deduced = found.plugboard();
+        assertFalse("no plugboard pairs deduced", deduced.isEmpty());
+        for (String cycle : deduced.split(" ")) {
+            assertTrue(cycle, plug.contains(cycle));
+        }
+    }
+
+    @Test
+    public void checkScorers() {
+        int[] text = { 0, 0, 1, 1 };
+        assertEquals(4.0 / 12, Scorer.indexOfCoincidence(26).score(text, 4),
+                     1e-9);
+        Scorer bigrams = Scorer.ngrams(UPPER, "ABABABAB", 2);
+        assertTrue(bigrams.score(new int[] { 0, 1, 0, 1 }, 4)
+                   > bigrams.score(new int[] { 0, 0, 1, 1 }, 4));
+        assertEquals(2, Scorer.crib(UPPER, "AB C").score(new int[] { 0, 2, 2 },
+                                                          3), 0);
+    }
+
+}
@@ -0,0 +1,231 @@
+package enigma;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+import static enigma.EnigmaException.*;
+
+/** Converts input delivered in chunks, as a Transcriber does, but with
+ *  the setting blocks (a setting line and the message lines after it)
+ *  converted concurrently.  The input is cut into batches of whole
+ *  blocks at the starts of setting lines, without assembling lines, and
+ *  each batch is converted by a Transcriber of its own on a machine from
+ *  a shared pool; the results are written in order.  A block too long to
+ *  hold in a batch is instead converted as it arrives by a Transcriber
+ *  writing straight to the output, which converts its long messages in
+ *  parallel pieces, so memory use does not depend on the length of the
+ *  input or of its lines or blocks.
+ *  @author Yiwen Feng
+ */
+class BatchTranscriber {
+
+    /** Minimum number of characters in a batch of setting blocks. */
+    static final int BATCH = 1 << 16;
+
+    /** Largest number of characters held for a batch before the block
+     *  being read is converted directly instead. */
+    static final int MAX_BATCH = 4 * BATCH;
+
+    /** A BatchTranscriber that sets up machines from MACHINES through MAIN
+     *  and writes converted messages to OUTPUT, converting batches on
+     *  THREADS threads. */
+    BatchTranscriber(Main main, MachinePool machines, Writer output,
+                     int threads) {
+        _main = main;
+        _machines = machines;
+        _output = output;
+        _threads = threads;
+        _pool = new ForkJoinPool(threads);
+    }
+
+    /** Process the LEN characters of BUF starting at OFF. */
+    void feed(char[] buf, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            char c = buf[i];
+            _batch.append(c);
+            if (c == '\n' || c == '\r') {
+                _blank = true;
+                _line = _batch.length();
+            } else if (_blank && c != ' ') {
+                _blank = false;
+                if (c == '*' && _line >= 0) {
+                    startBlock();
+                }
+            }
+        }
+        if (_direct == null && _batch.length() > MAX_BATCH) {
+            startDirect();
+        }
+        if (_direct != null) {
+            int end = _blank && _line >= 0 ? _line : _batch.length();
+            if (_batch.length() - end > MAX_BATCH) {
+                end = _batch.length();
+            }
+            feedDirect(end);
+        }
+    }
+
+    /** Finish processing after the last call to feed, and write and
+     *  flush all output. */
+    void finish() {
+        if (_direct != null) {
+            feedDirect(_batch.length());
+            _direct.finish();
+            endDirect();
+        } else {
+            submit(_batch.length());
+        }
+        while (!_pending.isEmpty()) {
+            writeNext();
+        }
+        try {
+            _output.flush();
+        } catch (IOException excp) {
+            throw error("could not write output");
+        }
+    }
+
+    /** Stop the threads converting batches and release any machine in
+     *  use. */
+    void close() {
+        _pool.shutdownNow();
+        if (_direct != null) {
+            endDirect();
+        }
+    }
+
+    /** Note that a setting line starts at _line in _batch, which ends the
+     *  block being converted directly, if any, or else the current batch
+     *  if it is long enough. */
+    private void startBlock() {
+        if (_direct != null) {
+            feedDirect(_line);
+            _direct.flush();
+            endDirect();
+        } else if (_line >= BATCH) {
+            submit(_line);
+        }
+        _block = _line;
+    }
+
+    /** Begin converting the block starting at _block directly, after
+     *  submitting the blocks before it and writing all pending
+     *  results. */
+    private void startDirect() {
+        if (_block > 0) {
+            submit(_block);
+        }
+        while (!_pending.isEmpty()) {
+            writeNext();
+        }
+        _directMachine = _machines.acquire();
+        _direct = new Transcriber(_main, _directMachine, _output);
+        _direct.setParallel(true);
+    }
+
+    /** Stop converting directly, releasing the machine used. */
+    private void endDirect() {
+        _machines.release(_directMachine);
+        _direct = null;
+        _directMachine = null;
+    }
+
+    /** Feed the first END characters of _batch to _direct, and remove
+     *  them. */
+    private void feedDirect(int end) {
+        if (_chars.length < end) {
+            _chars = new char[Math.max(end, 2 * _chars.length)];
+        }
+        _batch.getChars(0, end, _chars, 0);
+        _direct.feed(_chars, 0, end);
+        remove(end);
+    }
+
+    /** Start converting the first END characters of _batch as a batch,
+     *  and remove them.  Writes results while too many are pending. */
+    private void submit(int end) {
+        String batch = _batch.substring(0, end);
+        remove(end);
+        _pending.add(CompletableFuture.supplyAsync(() -> convert(batch),
+                                                   _pool));
+        while (_pending.size() > 2 * _threads) {
+            writeNext();
+        }
+    }
+
+    /** Remove the first END characters of _batch, adjusting the positions
+     *  noted in it. */
+    private void remove(int end) {
+        _batch.delete(0, end);
+        _line = _line >= end ? _line - end : -1;
+        _block = Math.max(0, _block - end);
+    }
+
+    /** Return the conversion of the whole setting blocks in BATCH, on a
+     *  machine from my pool. */
+    private String convert(String batch) {
+        Machine machine = _machines.acquire();
+        try {
+            StringWriter result = new StringWriter();
+            Transcriber transcriber = new Transcriber(_main, machine, result);
+            transcriber.setParallel(true);
+            char[] chars = batch.toCharArray();
+            transcriber.feed(chars, 0, chars.length);
+            transcriber.finish();
+            return result.toString();
+        } finally {
+            _machines.release(machine);
+        }
+    }
+
+    /** Write the result of the oldest pending batch once it is done,
+     *  rethrowing any error it reported. */
+    private void writeNext() {
+        try {
+            _output.write(_pending.remove().join());
+        } catch (CompletionException excp) {
+            if (excp.getCause() instanceof EnigmaException) {
+                throw (EnigmaException) excp.getCause();
+            }
+            throw excp;
+        } catch (IOException excp) {
+            throw error("could not write output");
+        }
+    }
+
+    /** Sets up machines from setting lines. */
+    private final Main _main;
+    /** Source of machines for batches. */
+    private final MachinePool _machines;
+    /** Destination of converted messages. */
+    private final Writer _output;
+    /** Number of threads converting batches. */
+    private final int _threads;
+    /** Threads converting batches. */
+    private final ForkJoinPool _pool;
+    /** Results of the batches submitted and not yet written, oldest
+     *  first. */
+    private final ArrayDeque<CompletableFuture<String>> _pending =
+        new ArrayDeque<>();
+    /** Input not yet submitted or converted. */
+    private final StringBuilder _batch = new StringBuilder();
+    /** Position in _batch of the start of the current line, or -1 if it
+     *  has been removed. */
+    private int _line;
+    /** Position in _batch of the start of the last setting line. */
+    private int _block;
+    /** True iff the current line holds only blanks so far. */
+    private boolean _blank = true;
+    /** Converts the current block directly, or null. */
+    private Transcriber _direct;
+    /** Machine used by _direct. */
+    private Machine _directMachine;
+    /** Buffer of characters fed to _direct. */
+    private char[] _chars = new char[Transcriber.CHUNK];
+
+}
@@ -0,0 +1,287 @@
+package enigma;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static enigma.EnigmaException.*;
+
+/** A Turing-Welchman bombe: a search for the rotor orders and settings
+ *  consistent with a crib, a piece of known plaintext lying under a
+ *  stretch of ciphertext.  Each crib position links a plaintext letter
+ *  and a ciphertext letter through the scrambler (the rotors without the
+ *  plugboard) at that position, forming the menu.  For each rotor order
+ *  and setting, a hypothesis about the plugboard partner of one menu
+ *  letter is propagated through the menu and the diagonal board (the
+ *  symmetry of the plugboard) as sets of possible partners held as
+ *  bitsets.  A setting survives, as a stop, if some hypothesis leads to
+ *  no letter having two partners.  Rings are taken to be at their first
+ *  setting, so a stop may need the rings, and settings, of its moving
+ *  rotors adjusted by Analyzer.  Rotor orders run concurrently.
+ *  @author Yiwen Feng
+ */
+class Bombe {
+
+    /** A bombe for machines configured as CONFIG, for the crib CRIB
+     *  lying under the characters of CIPHERTEXT starting at OFFSET.
+     *  Blanks in CRIB and CIPHERTEXT are ignored. */
+    Bombe(Machine config, String crib, String ciphertext, int offset) {
+        _space = new SearchSpace(config);
+        _alphabet = config.alphabet();
+        _size = _alphabet.size();
+        if (_size > Long.SIZE) {
+            throw error("bombe alphabets have at most %d characters",
+                        Long.SIZE);
+        }
+        int[] plain = indices(crib);
+        int[] cipher = indices(ciphertext);
+        if (offset < 0 || offset + plain.length > cipher.length) {
+            throw error("crib does not fit under the ciphertext");
+        }
+        _offset = offset;
+        _from = plain;
+        _to = Arrays.copyOfRange(cipher, offset, offset + plain.length);
+        List<List<Integer>> edges = new ArrayList<>();
+        for (int a = 0; a < _size; a++) {
+            edges.add(new ArrayList<>());
+        }
+        for (int i = 0; i < _from.length; i++) {
+            if (_from[i] == _to[i]) {
+                throw error("crib letter %c cannot encode to itself",
+                            _alphabet.toChar(_from[i]));
+            }
+            edges.get(_from[i]).add(i);
+            edges.get(_to[i]).add(i);
+        }
+        _edges = new int[_size][];
+        int test = 0;
+        for (int a = 0; a < _size; a++) {
+            _edges[a] = edges.get(a).stream().mapToInt(i -> i).toArray();
+            if (_edges[a].length > _edges[test].length) {
+                test = a;
+            }
+        }
+        _test = test;
+        _all = _size == Long.SIZE ? -1L : (1L << _size) - 1;
+    }
+
+    /** Allow only the rotors named NAMES in slot SLOT. */
+    void restrict(int slot, String... names) {
+        _space.restrict(slot, names);
+    }
+
+    /** Try only SETTING for the rotor in slot SLOT. */
+    void fixSetting(int slot, char setting) {
+        _space.fixSetting(slot, setting);
+    }
+
+    /** Return the stops for every allowed rotor order and setting, in
+     *  order of rotor order and then setting. */
+    List<Stop> run() {
+        List<String[]> orders = _space.orders();
+        return IntStream.range(0, _space.numTasks(orders.size())).parallel()
+            .mapToObj(t -> new Task().run(_space.order(orders, t), t))
+            .flatMap(List::stream)
+            .collect(Collectors.toList());
+    }
+
+    /** Return the indices of the characters of TEXT other than blanks. */
+    private int[] indices(String text) {
+        return text.chars().filter(c -> c != ' ')
+            .map(c -> _alphabet.toInt((char) c)).toArray();
+    }
+
+    /** The search of one task of my search space, with its own scrambler
+     *  and working storage. */
+    private class Task {
+
+        /** Return the stops among the settings of task TASK, with rotors
+         *  ORDER. */
+        List<Stop> run(String[] order, int task) {
+            CompiledMachine machine = _space.compile(order, "");
+            int[] settings = _space.start(task);
+            int slots = settings.length;
+            List<Stop> stops = new ArrayList<>();
+            do {
+                for (int s = 1; s < slots; s++) {
+                    machine.set(s, settings[s]);
+                }
+                for (int k = 0; k < _offset; k++) {
+                    machine.advance();
+                }
+                for (int i = 0; i < _from.length; i++) {
+                    machine.advance();
+                    machine.mapping(_rows[i]);
+                }
+                String plugboard = test();
+                if (plugboard != null) {
+                    stops.add(new Stop(order, settings, plugboard));
+                }
+            } while (_space.next(settings));
+            return stops;
+        }
+
+        /** Return the plugboard cycles implied by the first hypothesis
+         *  about the partner of the test letter that is consistent with
+         *  the menu under the scramblers in _rows, or null if there is
+         *  none. */
+        private String test() {
+            if (propagate(0, false) && !_conflict) {
+                return plugboard();
+            }
+            long untried = ~_live[_test] & _all;
+            for (int h = 0; h < _size; h++) {
+                if ((untried >>> h & 1) != 0 && propagate(h, true)) {
+                    return plugboard();
+                }
+            }
+            return null;
+        }
+
+        /** Propagate the hypothesis that H is the partner of the test
+         *  letter through the menu and diagonal board into _live.  If
+         *  SINGLE, return false as soon as some letter has two possible
+         *  partners; otherwise, return false as soon as every letter is
+         *  possible for the test letter.  Return true if propagation
+         *  finishes. */
+        private boolean propagate(int h, boolean single) {
+            Arrays.fill(_live, 0);
+            Arrays.fill(_done, 0);
+            Arrays.fill(_queued, false);
+            _pending = 0;
+            _conflict = false;
+            add(_test, h);
+            while (_pending > 0) {
+                _pending--;
+                int a = _stack[_pending];
+                _queued[a] = false;
+                long bits = _live[a] & ~_done[a];
+                _done[a] |= bits;
+                for (int e : _edges[a]) {
+                    int b = _from[e] == a ? _to[e] : _from[e];
+                    int[] row = _rows[e];
+                    for (long rest = bits; rest != 0; rest &= rest - 1) {
+                        add(b, row[Long.numberOfTrailingZeros(rest)]);
+                    }
+                }
+                if (single ? _conflict : _live[_test] == _all) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** Record that X may be the partner of A, and so A of X. */
+        private void add(int a, int x) {
+            mark(a, x);
+            mark(x, a);
+        }
+
+        /** Record that X may be the partner of A, scheduling A to be
+         *  propagated if that is new. */
+        private void mark(int a, int x) {
+            long bit = 1L << x;
+            if ((_live[a] & bit) != 0) {
+                return;
+            }
+            if (_live[a] != 0) {
+                _conflict = true;
+            }
+            _live[a] |= bit;
+            if (!_queued[a]) {
+                _queued[a] = true;
+                _stack[_pending] = a;
+                _pending++;
+            }
+        }
+
+        /** Return the plugboard cycles of the partners in _live, which
+         *  must be consistent. */
+        private String plugboard() {
+            StringBuilder result = new StringBuilder();
+            for (int a = 0; a < _size; a++) {
+                int x = Long.numberOfTrailingZeros(_live[a]);
+                if (_live[a] != 0 && a < x) {
+                    if (result.length() > 0) {
+                        result.append(' ');
+                    }
+                    result.append('(').append(_alphabet.toChar(a))
+                        .append(_alphabet.toChar(x)).append(')');
+                }
+            }
+            return result.toString();
+        }
+
+        /** The scrambler mapping at each crib position. */
+        private final int[][] _rows = new int[_from.length][_size];
+        /** The possible partners of each letter, as bitsets. */
+        private final long[] _live = new long[_size];
+        /** The partners of each letter already propagated. */
+        private final long[] _done = new long[_size];
+        /** Letters awaiting propagation. */
+        private final int[] _stack = new int[_size];
+        /** Number of letters in _stack. */
+        private int _pending;
+        /** Whether each letter is in _stack. */
+        private final boolean[] _queued = new boolean[_size];
+        /** True iff some letter has had a second possible partner added
+         *  during the last propagation. */
+        private boolean _conflict;
+    }
+
+    /** A surviving rotor order and setting, with the plugboard partners
+     *  it implies. */
+    class Stop {
+
+        /** A stop with rotors ROTORS, settings SETTINGS[1 ..] and the
+         *  plugboard cycles PLUGBOARD. */
+        Stop(String[] rotors, int[] settings, String plugboard) {
+            _rotors = rotors;
+            _settings = settings.clone();
+            _plugboard = plugboard;
+        }
+
+        /** Return the plugboard cycles found, which cover only letters
+         *  reached from the menu. */
+        String plugboard() {
+            return _plugboard;
+        }
+
+        /** Return my setting line, in the form read by Main. */
+        @Override
+        public String toString() {
+            return _space.settingLine(_rotors, _settings,
+                                      new int[_settings.length], _plugboard);
+        }
+
+        /** Names of my rotors, by slot. */
+        private final String[] _rotors;
+        /** My rotor settings, by slot. */
+        private final int[] _settings;
+        /** My plugboard cycles. */
+        private final String _plugboard;
+    }
+
+    /** The rotor orders and settings searched. */
+    private final SearchSpace _space;
+    /** My alphabet. */
+    private final Alphabet _alphabet;
+    /** Size of _alphabet. */
+    private final int _size;
+    /** Position in the ciphertext of the first crib letter. */
+    private final int _offset;
+    /** The crib letter at each crib position. */
+    private final int[] _from;
+    /** The ciphertext letter at each crib position. */
+    private final int[] _to;
+    /** The crib positions at which each letter appears, as either crib or
+     *  ciphertext letter. */
+    private final int[][] _edges;
+    /** The menu letter whose partner is hypothesized. */
+    private final int _test;
+    /** The set of all letters. */
+    private final long _all;
+
+}
@@ -0,0 +1,96 @@
+package enigma;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.SocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+import static enigma.EnigmaException.*;
+
+/** The client side of the protocol described in Server: sends one
+ *  request and copies the answer to an output.
+ *  @author Yiwen Feng
+ */
+class Client {
+
+    /** A client that sends INPUT to the server at ADDRESS and writes the
+     *  answer to OUTPUT. */
+    Client(String address, Reader input, Writer output) {
+        _address = address;
+        _input = input;
+        _output = output;
+    }
+
+    /** Send my request and copy the answer to my output.  Throws an
+     *  EnigmaException carrying the server's message if it reports an
+     *  error. */
+    void run() {
+        SocketAddress where = Server.address(_address);
+        try (SocketChannel server = SocketChannel.open(where)) {
+            Thread sender = new Thread(() -> send(server));
+            sender.setDaemon(true);
+            sender.start();
+            DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Server.inputOf(server),
+                                        Transcriber.CHUNK));
+            while (true) {
+                byte type = in.readByte();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                String text = new String(bytes, StandardCharsets.UTF_8);
+                if (type == Server.DATA) {
+                    _output.write(text);
+                    continue;
+                }
+                _output.flush();
+                if (type == Server.OK) {
+                    return;
+                }
+                throw error("%s", text);
+            }
+        } catch (EOFException excp) {
+            throw error("connection to %s closed early", _address);
+        } catch (IOException excp) {
+            throw error("could not reach server at %s", _address);
+        }
+    }
+
+    /** Copy my input to SERVER and shut down its output side.  Runs
+     *  concurrently with the reading of the answer, so that neither side
+     *  blocks the other when both request and answer are large. */
+    private void send(SocketChannel server) {
+        try {
+            Writer out = new OutputStreamWriter(
+                new BufferedOutputStream(Server.outputOf(server),
+                                         Transcriber.CHUNK),
+                StandardCharsets.UTF_8);
+            char[] buf = new char[Transcriber.CHUNK];
+            for (int n = _input.read(buf); n >= 0; n = _input.read(buf)) {
+                out.write(buf, 0, n);
+            }
+            out.flush();
+            server.shutdownOutput();
+        } catch (IOException excp) {
+            try {
+                server.close();
+            } catch (IOException ignored) {
+                return;
+            }
+        }
+    }
+
+    /** Address of the server. */
+    private final String _address;
+    /** Source of the request. */
+    private final Reader _input;
+    /** Destination of the answer. */
+    private final Writer _output;
+
+}
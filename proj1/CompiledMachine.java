@@ -0,0 +1,528 @@
+package enigma;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static enigma.EnigmaException.*;
+
+/** A snapshot of a configured Machine, flattened into primitive arrays so
+ *  that converting a character involves no virtual calls, boxing or
+ *  allocation.  It converts exactly as the Machine it was compiled from
+ *  would have from the state that Machine had when compiled, but the two
+ *  are independent afterwards.  Once it is loaded with a rotor state it
+ *  has started converting from before, it caches the mapping performed
+ *  in each rotor state it passes through, so that converting again from
+ *  that state mostly costs one lookup per character.
+ *  @author Yiwen Feng
+ */
+final class CompiledMachine {
+
+    /** Kernel that converts several values at once, or null.  It is
+     *  loaded only if the system property enigma.vector is true, since
+     *  the only kernel, VectorKernel, is compiled only with the
+     *  benchmarks and has measured slower than the scalar loops there. */
+    static final ConversionKernel KERNEL = kernel();
+
+    /** Number of values converted at once by KERNEL, or 0 if there is
+     *  none. */
+    static final int VECTOR_LENGTH = KERNEL == null ? 0 : KERNEL.length();
+
+    /** Return a new VectorKernel if enigma.vector is true and the class
+     *  and the Vector API module are available, and otherwise null. */
+    private static ConversionKernel kernel() {
+        if (!Boolean.getBoolean("enigma.vector")) {
+            return null;
+        }
+        try {
+            return (ConversionKernel) Class.forName("enigma.VectorKernel")
+                .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError excp) {
+            return null;
+        }
+    }
+
+    /** Return true iff conversions for an alphabet of SIZE characters
+     *  should use KERNEL.  It is used only for 26-letter alphabets, for
+     *  which the tables of all the rotors fit in the first-level data
+     *  cache, so that its gathers do not stall, and only with vectors of
+     *  at least four values. */
+    static boolean vectorized(int size) {
+        return size == 26 && VECTOR_LENGTH >= 4;
+    }
+
+    /** Largest number of ints held by the mappings in my cache. */
+    static final int MAX_CACHED_INTS = 1 << 17;
+
+    /** Number of the most recent starting rotor states remembered to
+     *  decide whether to cache mappings. */
+    private static final int STARTS = 16;
+
+    /** A compiled machine with alphabet ALPHA, the rotors ROTORS in slot
+     *  order (ROTORS[0] being the reflector), of which the rightmost PAWLS
+     *  move, and plugboard PLUGBOARD (the identity if null).  The current
+     *  settings and rings of ROTORS are copied.  ALPHA must be small
+     *  enough for the rotors to have conversion tables. */
+    CompiledMachine(Alphabet alpha, List<Rotor> rotors, int pawls,
+                    Permutation plugboard) {
+        int n = alpha.size();
+        if (!Rotor.tabulated(n)) {
+            throw error("alphabet of %d characters is too large to compile",
+                        n);
+        }
+        int slots = rotors.size();
+        _size = n;
+        _right = slots - 1;
+        _left = slots - pawls;
+        _chars = new char[n];
+        char max = 0;
+        for (int k = 0; k < n; k++) {
+            _chars[k] = alpha.toChar(k);
+            max = (char) Math.max(max, _chars[k]);
+        }
+        _index = new int[max + 1];
+        for (int c = 0; c <= max; c++) {
+            _index[c] = alpha.contains((char) c) ? alpha.toInt((char) c) : -1;
+        }
+        _plugboard = new int[n];
+        for (int k = 0; k < n; k++) {
+            _plugboard[k] = plugboard == null ? k : plugboard.permute(k);
+        }
+        _forward = new int[slots * n * n];
+        _backward = new int[slots * n * n];
+        _notch = new boolean[slots * n];
+        _ring = new int[slots];
+        _pos = new int[slots];
+        _base = new int[slots];
+        _tables = new int[slots][];
+        _weight = new long[slots];
+        long weight = 1;
+        for (int i = _right; i >= 0 && weight > 0; i--) {
+            _weight[i] = weight;
+            weight = weight <= Long.MAX_VALUE / n ? weight * n : -1;
+        }
+        _cacheable = weight > 0 && !Metrics.ENABLED;
+        _row = new int[n];
+        _vector = vectorized(n);
+        _gather = new int[VECTOR_LENGTH];
+        for (int i = 0; i < slots; i++) {
+            Rotor r = rotors.get(i);
+            _tables[i] = r.forwardTable();
+            System.arraycopy(r.forwardTable(), 0, _forward, i * n * n, n * n);
+            System.arraycopy(r.backwardTable(), 0, _backward, i * n * n,
+                             n * n);
+            for (int p = 0; p < n; p++) {
+                _notch[i * n + p] = r.notchAt(p);
+            }
+            _ring[i] = r.distance();
+            place(i, r.setting());
+        }
+        start();
+    }
+
+    /** Return true iff ROTORS and PLUGBOARD (the identity if null) are
+     *  the rotors and plugboard I was compiled from, or copies of them,
+     *  with the same rings, ignoring their settings. */
+    boolean matches(List<Rotor> rotors, Permutation plugboard) {
+        if (rotors.size() != _right + 1) {
+            return false;
+        }
+        for (int i = 0; i <= _right; i++) {
+            Rotor r = rotors.get(i);
+            if (r.forwardTable() != _tables[i] || r.distance() != _ring[i]) {
+                return false;
+            }
+        }
+        for (int k = 0; k < _size; k++) {
+            if (_plugboard[k] != (plugboard == null ? k
+                                  : plugboard.permute(k))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Set the rotors in my slots to the settings of ROTORS, which must
+     *  be the rotors I was compiled from or copies of them. */
+    void load(List<Rotor> rotors) {
+        for (int i = 0; i <= _right; i++) {
+            place(i, rotors.get(i).setting());
+        }
+        _stale = false;
+        start();
+    }
+
+    /** Note that conversion starts afresh from my current rotor state.
+     *  Mappings are cached, from then on, once such a state is one of
+     *  the last STARTS of them, since the conversions that follow are
+     *  then likely to revisit the states seen after it. */
+    private void start() {
+        if (_cache != null) {
+            _cache.restart();
+        } else if (_cacheable) {
+            for (int k = 0; k < Math.min(_startCount, STARTS); k++) {
+                if (_starts[k] == _key) {
+                    _cache = new MappingCache(_size, MAX_CACHED_INTS / _size);
+                    return;
+                }
+            }
+            _starts[_startCount % STARTS] = _key;
+            _startCount++;
+        }
+    }
+
+    /** Set the moving rotors among ROTORS, which must be the rotors I was
+     *  compiled from or copies of them, to my settings. */
+    void store(List<Rotor> rotors) {
+        sync();
+        for (int i = _left; i <= _right; i++) {
+            rotors.get(i).set(_pos[i]);
+        }
+    }
+
+    /** Return the setting of the rotor in slot K. */
+    int setting(int k) {
+        sync();
+        return _pos[k];
+    }
+
+    /** Advance my rotors as Machine.machineAdvance would. */
+    void advance() {
+        sync();
+        int n = _size;
+        int[] pos = _pos;
+        boolean[] notch = _notch;
+        for (int i = _left; i <= _right; i++) {
+            boolean carried = i == _right || notch[(i + 1) * n + pos[i + 1]];
+            if (carried || (i > _left && notch[i * n + pos[i]])) {
+                place(i, pos[i] == n - 1 ? 0 : pos[i] + 1);
+                if (Metrics.ENABLED) {
+                    _steps++;
+                    if (!carried) {
+                        _doubleSteps++;
+                    }
+                }
+            }
+        }
+    }
+
+    /** Returns the result of converting the input character C (as an
+     *  index in the range 0..alphabet size - 1), after first advancing
+     *  the machine.  While mappings are cached, a run of rotor states
+     *  seen before is followed through the cache without stepping my
+     *  rotors, which catch up only when next needed. */
+    int convert(int c) {
+        if (_cache == null) {
+            advance();
+            return scramble(c);
+        }
+        int[] row = _cache.follow();
+        if (row == null) {
+            advance();
+            row = _cache.row(_key);
+            if (_cache.misses() > _cache.capacity()) {
+                _cache = null;
+                _cacheable = false;
+            }
+        } else {
+            _stale = true;
+        }
+        int value = row[c];
+        if (value < 0) {
+            sync();
+            value = scramble(c);
+            row[c] = value;
+        }
+        return value;
+    }
+
+    /** Bring my rotor settings up to the state of the mapping last
+     *  followed through my cache, if they lag behind it. */
+    private void sync() {
+        if (_stale) {
+            long key = _cache.key();
+            for (int i = _right; i >= 0; i--) {
+                place(i, (int) (key % _size));
+                key /= _size;
+            }
+            _stale = false;
+        }
+    }
+
+    /** Store into ROW the result of scramble on each index, that is, the
+     *  mapping I perform with my rotors in their current positions. */
+    void mapping(int[] row) {
+        sync();
+        int p = 0;
+        if (_vector) {
+            p = KERNEL.mapping(_plugboard, _forward, _backward, _base,
+                               _right, row, _gather);
+        }
+        for (; p < _size; p++) {
+            row[p] = scramble(p);
+        }
+    }
+
+    /** Returns the result of passing C through the plugboard, the rotors
+     *  in their current positions, and the plugboard again. */
+    private int scramble(int c) {
+        int[] forward = _forward;
+        int[] backward = _backward;
+        int[] base = _base;
+        int value = _plugboard[c];
+        for (int i = _right; i >= 0; i--) {
+            value = forward[base[i] + value];
+        }
+        for (int i = 1; i <= _right; i++) {
+            value = backward[base[i] + value];
+        }
+        return _plugboard[value];
+    }
+
+    /** Converts the LEN characters of IN starting at OFF, skipping blanks,
+     *  into OUT starting at OUTOFF, as Machine.convert would.  Returns the
+     *  number of characters stored into OUT.  IN and OUT may be the same
+     *  array provided that OUTOFF <= OFF. */
+    int convert(char[] in, int off, int len, char[] out, int outOff) {
+        int[] index = _index;
+        char[] chars = _chars;
+        int k = outOff;
+        for (int i = off; i < off + len; i++) {
+            char c = in[i];
+            if (c != ' ') {
+                int p = c < index.length ? index[c] : -1;
+                if (p < 0) {
+                    throw error("The character is not in alphabet in A");
+                }
+                out[k] = chars[convert(p)];
+                k++;
+            }
+        }
+        if (Metrics.ENABLED) {
+            Metrics.CHARACTERS.add(k - outOff);
+            reportSteps();
+        }
+        return k - outOff;
+    }
+
+    /** Converts the bytes IN[FROM .. TO-1], each an ASCII character,
+     *  skipping blanks, as convert(char[], int, int, char[], int) would,
+     *  and writes the results as bytes into OUT from its position on, in
+     *  groups of five separated by blanks.  GROUP letters are already on
+     *  the current output line; returns the count afterward, which is
+     *  only kept exact modulo five.  OUT must have room for every byte
+     *  written, and its position is advanced past them.  Neither buffer
+     *  is copied. */
+    int transcribe(ByteBuffer in, int from, int to, ByteBuffer out,
+                   int group) {
+        int[] index = _index;
+        char[] chars = _chars;
+        int k = out.position();
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int c = in.get(i) & 0xff;
+            if (c != ' ') {
+                int p = c < index.length ? index[c] : -1;
+                if (p < 0) {
+                    throw error("The character is not in alphabet in A");
+                }
+                if (group > 0 && group % 5 == 0) {
+                    out.put(k, (byte) ' ');
+                    k++;
+                    group = 5;
+                }
+                out.put(k, (byte) chars[convert(p)]);
+                k++;
+                group++;
+                count++;
+            }
+        }
+        out.position(k);
+        if (Metrics.ENABLED) {
+            Metrics.CHARACTERS.add(count);
+            reportSteps();
+        }
+        return group;
+    }
+
+    /** Converts each of the messages IN[0 .. COUNT-1], which contain no
+     *  blanks, as convert would, but each starting from my current rotor
+     *  settings, and stores the result for IN[K] into OUT[K], which may be
+     *  IN[K].  Leaves my settings unchanged.  Characters at the same
+     *  position of different messages are converted under the same rotor
+     *  state, so wherever at least as many messages as my alphabet has
+     *  characters are that long, the mapping for that state is computed
+     *  once and applied to all of them by table lookup. */
+    void convertEach(char[][] in, char[][] out, int count) {
+        long[] order = new long[count];
+        for (int k = 0; k < count; k++) {
+            order[k] = ((long) in[k].length << 32) | k;
+        }
+        Arrays.sort(order);
+        sync();
+        int[] saved = _pos.clone();
+        int[] index = _index;
+        char[] chars = _chars;
+        int[] row = _row;
+        int first = 0;
+        for (int j = 0; first < count; j++) {
+            while (first < count && (int) (order[first] >>> 32) <= j) {
+                first++;
+            }
+            if (first == count) {
+                break;
+            }
+            advance();
+            boolean shared = count - first >= _size;
+            if (shared) {
+                mapping(row);
+            }
+            for (int m = first; m < count; m++) {
+                int k = (int) order[m];
+                char c = in[k][j];
+                int p = c < index.length ? index[c] : -1;
+                if (p < 0) {
+                    throw error("The character is not in alphabet in A");
+                }
+                out[k][j] = chars[shared ? row[p] : scramble(p)];
+            }
+        }
+        for (int i = 0; i <= _right; i++) {
+            place(i, saved[i]);
+        }
+        if (_cache != null) {
+            _cache.restart();
+        }
+        if (Metrics.ENABLED) {
+            for (int k = 0; k < count; k++) {
+                Metrics.CHARACTERS.add(in[k].length);
+            }
+            reportSteps();
+        }
+    }
+
+    /** Add the steps counted since the last call to Metrics. */
+    private void reportSteps() {
+        Metrics.STEPS.add(_steps);
+        Metrics.DOUBLE_STEPS.add(_doubleSteps);
+        _steps = _doubleSteps = 0;
+    }
+
+    /** Converts the LEN indices IN[0 .. LEN-1] into OUT, which may be IN,
+     *  as convert(int) would. */
+    void convert(int[] in, int len, int[] out) {
+        for (int i = 0; i < len; i++) {
+            out[i] = convert(in[i]);
+        }
+    }
+
+    /** Returns the encoding/decoding of MSG, updating the state of
+     *  the rotors accordingly. */
+    String convert(String msg) {
+        char[] buf = msg.toCharArray();
+        int n = convert(buf, 0, buf.length, buf, 0);
+        return new String(buf, 0, n);
+    }
+
+    /** Set the ring setting of the rotor in slot K to RING, keeping its
+     *  setting. */
+    void setRing(int k, int ring) {
+        sync();
+        if (_cache != null) {
+            _cache.clear();
+        }
+        _ring[k] = ring;
+        place(k, _pos[k]);
+    }
+
+    /** Return the ring setting of the rotor in slot K. */
+    int ring(int k) {
+        return _ring[k];
+    }
+
+    /** Set the rotor in slot K to setting POSN. */
+    void set(int k, int posn) {
+        sync();
+        place(k, posn);
+        if (_cache != null) {
+            _cache.restart();
+        }
+    }
+
+    /** Set the rotor in slot K to setting POSN, keeping _key in step,
+     *  without regard to my cache. */
+    private void place(int k, int posn) {
+        int n = _size;
+        int shift = posn - _ring[k];
+        if (shift < 0) {
+            shift += n;
+        }
+        _key += (posn - _pos[k]) * _weight[k];
+        _pos[k] = posn;
+        _base[k] = (k * n + shift) * n;
+    }
+
+    /** Size of my alphabet. */
+    private final int _size;
+    /** Slot of the leftmost moving rotor. */
+    private final int _left;
+    /** Slot of the rightmost rotor. */
+    private final int _right;
+    /** The characters of my alphabet, by index. */
+    private final char[] _chars;
+    /** The index of each character up to the largest in my alphabet, or
+     *  -1 for characters not in it. */
+    private final int[] _index;
+    /** The plugboard permutation, by index. */
+    private final int[] _plugboard;
+    /** The forward conversion table of the rotor in each slot, as
+     *  Rotor.forwardTable() returned it. */
+    private final int[][] _tables;
+    /** The forward conversion tables of the rotors (as laid out by
+     *  Rotor.forwardTable()), one after another in slot order. */
+    private final int[] _forward;
+    /** The backward conversion tables, laid out as _forward. */
+    private final int[] _backward;
+    /** The packed settings of all my slots: the sum of the setting of
+     *  each slot K times _weight[K]. */
+    private long _key;
+    /** The weight of each slot in _key, a power of my alphabet size
+     *  that decreases from left to right. */
+    private final long[] _weight;
+    /** True iff mappings may be cached: the settings of all my slots
+     *  fit in _key, and no run of misses has yet filled the cache. */
+    private boolean _cacheable;
+    /** The mappings for recently used rotor states, keyed by _key, or
+     *  null if they are not being cached. */
+    private MappingCache _cache;
+    /** The most recent values of _key from which conversion started,
+     *  until mappings are cached. */
+    private final long[] _starts = new long[STARTS];
+    /** Number of values of _key added to _starts. */
+    private int _startCount;
+    /** True iff my settings lag behind the mapping last followed through
+     *  _cache. */
+    private boolean _stale;
+    /** Whether the rotor in slot K is at a notch in setting P, at index
+     *  K * size + P. */
+    private final boolean[] _notch;
+    /** The ring setting of each slot. */
+    private final int[] _ring;
+    /** The current setting of each slot. */
+    private final int[] _pos;
+    /** The mapping of each input index under one rotor state, filled in
+     *  by convertEach. */
+    private final int[] _row;
+    /** True iff mapping uses KERNEL. */
+    private final boolean _vector;
+    /** Scratch space for the gathers of KERNEL. */
+    private final int[] _gather;
+    /** Rotor steps not yet added to Metrics.STEPS. */
+    private long _steps;
+    /** Double steps not yet added to Metrics.DOUBLE_STEPS. */
+    private long _doubleSteps;
+    /** The offset into _forward and _backward of the row for the current
+     *  setting and ring of each slot. */
+    private final int[] _base;
+
+}
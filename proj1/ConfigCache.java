@@ -0,0 +1,205 @@
+package enigma;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.zip.CRC32;
+
+/** Compiled configuration files.  A compiled file holds the alphabet,
+ *  the number of slots and pawls, and each rotor's name, kind, wiring
+ *  table, conversion tables and notch bitset, together with a checksum
+ *  of the text of the configuration it was compiled from, and ends with
+ *  a checksum of its own contents.  Loading one involves no parsing and
+ *  no recomputation of the conversion tables.
+ *  @author Yiwen Feng
+ */
+class ConfigCache {
+
+    /** Suffix appended to the name of a configuration file to get the
+     *  name of its compiled form. */
+    static final String SUFFIX = ".compiled";
+
+    /** First word of every compiled file. */
+    private static final int MAGIC = 0x454e4947;
+    /** Version of the format written by store. */
+    private static final int VERSION = 2;
+
+    /** Return the checksum of the configuration text TEXT. */
+    static long checksum(byte[] text) {
+        CRC32 crc = new CRC32();
+        crc.update(text);
+        return crc.getValue();
+    }
+
+    /** Return a machine built from the compiled configuration in the file
+     *  PATH, or null if there is none, it is unreadable or damaged, or it
+     *  was not compiled from text whose checksum is CHECKSUM. */
+    static Machine load(Path path, long checksum) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path)) {
+            ByteBuffer buf =
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.limit() < Long.BYTES) {
+                return null;
+            }
+            int end = buf.limit() - Long.BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(buf.duplicate().limit(end));
+            if (buf.getLong(end) != crc.getValue()) {
+                return null;
+            }
+            buf.limit(end);
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION
+                || buf.getLong() != checksum) {
+                return null;
+            }
+            Alphabet alphabet = new Alphabet(getString(buf));
+            if (!Rotor.tabulated(alphabet.size())) {
+                return null;
+            }
+            int numRotors = buf.getInt();
+            int pawls = buf.getInt();
+            int count = buf.getInt();
+            ArrayList<Rotor> rotors = new ArrayList<>();
+            for (int r = 0; r < count; r++) {
+                String name = getString(buf);
+                char kind = buf.getChar();
+                int n = alphabet.size();
+                int[] table = getInts(buf, n);
+                int[] forward = getInts(buf, n * n);
+                int[] backward = getInts(buf, n * n);
+                int numWords = buf.getInt();
+                if (numWords < 0 || numWords > buf.remaining() / 8) {
+                    return null;
+                }
+                long[] words = new long[numWords];
+                for (int k = 0; k < words.length; k++) {
+                    words[k] = buf.getLong();
+                }
+                Permutation perm = new Permutation(table, alphabet);
+                if (kind == 'M') {
+                    BitSet notches = BitSet.valueOf(words);
+                    StringBuilder chars = new StringBuilder();
+                    for (int k = notches.nextSetBit(0); k >= 0;
+                         k = notches.nextSetBit(k + 1)) {
+                        chars.append(alphabet.toChar(k));
+                    }
+                    rotors.add(new MovingRotor(name, perm, chars.toString(),
+                                               forward, backward));
+                } else if (kind == 'N') {
+                    rotors.add(new FixedRotor(name, perm, forward, backward));
+                } else {
+                    rotors.add(new Reflector(name, perm, forward, backward));
+                }
+            }
+            return new Machine(alphabet, numRotors, pawls, rotors);
+        } catch (IOException | RuntimeException excp) {
+            return null;
+        }
+    }
+
+    /** Write the compiled form of MACHINE, whose configuration text has
+     *  checksum CHECKSUM, to the file PATH.  Does nothing if PATH cannot
+     *  be written, or if MACHINE's alphabet is too large for its rotors
+     *  to have conversion tables. */
+    static void store(Path path, long checksum, Machine machine) {
+        if (!Rotor.tabulated(machine.alphabet().size())) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            Alphabet alphabet = machine.alphabet();
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(checksum);
+            StringBuilder chars = new StringBuilder();
+            for (int k = 0; k < alphabet.size(); k++) {
+                chars.append(alphabet.toChar(k));
+            }
+            putString(out, chars.toString());
+            out.writeInt(machine.numRotors());
+            out.writeInt(machine.numPawls());
+            out.writeInt(machine.allRotors().size());
+            for (Rotor r : machine.allRotors()) {
+                putString(out, r.name());
+                out.writeChar(r.rotates() ? 'M' : r.reflecting() ? 'R' : 'N');
+                BitSet notches = new BitSet();
+                for (int k = 0; k < alphabet.size(); k++) {
+                    out.writeInt(r.permutation().permute(k));
+                    notches.set(k, r.notchAt(k));
+                }
+                for (int v : r.forwardTable()) {
+                    out.writeInt(v);
+                }
+                for (int v : r.backwardTable()) {
+                    out.writeInt(v);
+                }
+                long[] words = notches.toLongArray();
+                out.writeInt(words.length);
+                for (long word : words) {
+                    out.writeLong(word);
+                }
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeLong(crc.getValue());
+            out.flush();
+            Path temp = Files.createTempFile(path.toAbsolutePath().getParent(),
+                                             ".enigma", ".tmp");
+            try {
+                Files.write(temp, bytes.toByteArray());
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException | SecurityException excp) {
+            return;
+        }
+    }
+
+    /** Return the string stored at the current position of BUF by
+     *  putString. */
+    private static String getString(ByteBuffer buf) {
+        int len = buf.getInt();
+        if (len < 0 || len > buf.remaining() / 2) {
+            throw new BufferUnderflowException();
+        }
+        char[] chars = new char[len];
+        for (int k = 0; k < chars.length; k++) {
+            chars[k] = buf.getChar();
+        }
+        return new String(chars);
+    }
+
+    /** Return the LEN ints stored at the current position of BUF, and
+     *  advance past them. */
+    private static int[] getInts(ByteBuffer buf, int len) {
+        if (len > buf.remaining() / Integer.BYTES) {
+            throw new BufferUnderflowException();
+        }
+        int[] result = new int[len];
+        buf.asIntBuffer().get(result);
+        buf.position(buf.position() + len * Integer.BYTES);
+        return result;
+    }
+
+    /** Write S to OUT in the form read by getString. */
+    private static void putString(DataOutputStream out, String s)
+        throws IOException {
+        out.writeInt(s.length());
+        out.writeChars(s);
+    }
+
+}
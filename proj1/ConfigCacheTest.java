@@ -0,0 +1,127 @@
+package enigma;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static enigma.MachineTest.*;
+
+/** The suite of all JUnit tests for the ConfigCache class.
+ *  @author Yiwen Feng
+ */
+public class ConfigCacheTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /** Directory holding the files of each test. */
+    @Rule
+    public TemporaryFolder dir = new TemporaryFolder();
+
+    /* ***** TESTING UTILITIES ***** */
+
+    /** Checksum under which the test machines are stored. */
+    private static final long CHECKSUM = 0x1234abcdL;
+
+    /** Naval rotors inserted into the test machines. */
+    private static final String[] ROTORS = { "B", "Beta", "III", "IV", "I" };
+
+    /** Return the path of the compiled file used by each test. */
+    private Path compiled() {
+        return new File(dir.getRoot(), "naval.conf.compiled").toPath();
+    }
+
+    /** Store the naval machine at compiled() and return the bytes
+     *  written. */
+    private byte[] store() throws IOException {
+        ConfigCache.store(compiled(), CHECKSUM, navalMachine());
+        return Files.readAllBytes(compiled());
+    }
+
+    /** Assert that M converts as the naval machine does. */
+    private static void assertNaval(Machine m) {
+        Machine expected = setUp(navalMachine(), ROTORS, "AXLE", "BCDE",
+                                 "(HQ) (EX) (IP) (TR) (BY)");
+        setUp(m, ROTORS, "AXLE", "BCDE", "(HQ) (EX) (IP) (TR) (BY)");
+        String msg = "FROM HIS SHOULDER HIAWATHA TOOK THE CAMERA";
+        assertEquals(expected.convert(msg), m.convert(msg));
+    }
+
+    /* ***** TESTS ***** */
+
+    @Test
+    public void checkRoundTrip() throws IOException {
+        store();
+        Machine m = ConfigCache.load(compiled(), CHECKSUM);
+        assertNotNull(m);
+        assertEquals(navalMachine().allRotors().size(),
+                     m.allRotors().size());
+        for (Rotor r : m.allRotors()) {
+            assertArrayEquals(Rotor.table(r.permutation(), true),
+                              r.forwardTable());
+            assertArrayEquals(Rotor.table(r.permutation(), false),
+                              r.backwardTable());
+        }
+        assertNaval(m);
+    }
+
+    @Test
+    public void checkReplace() throws IOException {
+        Files.write(compiled(), "not a compiled configuration".getBytes());
+        store();
+        assertNaval(ConfigCache.load(compiled(), CHECKSUM));
+        assertEquals(Arrays.asList(compiled().toFile().getName()),
+                     Arrays.asList(dir.getRoot().list()));
+    }
+
+    @Test
+    public void checkChecksumMismatch() throws IOException {
+        store();
+        assertNull(ConfigCache.load(compiled(), CHECKSUM + 1));
+    }
+
+    @Test
+    public void checkMissing() {
+        assertNull(ConfigCache.load(compiled(), CHECKSUM));
+    }
+
+    @Test
+    public void checkTruncated() throws IOException {
+        byte[] full = store();
+        for (int len = 0; len < full.length; len += 1 + len / 8) {
+            Files.write(compiled(), Arrays.copyOf(full, len));
+            assertNull("truncated to " + len,
+                       ConfigCache.load(compiled(), CHECKSUM));
+        }
+    }
+
+    @Test
+    public void checkDamaged() throws IOException {
+        byte[] full = store();
+        for (int k = 0; k < full.length; k += 1 + k / 8) {
+            byte[] damaged = full.clone();
+            damaged[k] ^= 0x10;
+            Files.write(compiled(), damaged);
+            assertNull("damaged at " + k,
+                       ConfigCache.load(compiled(), CHECKSUM));
+        }
+    }
+
+    @Test
+    public void checkUnwritable() throws IOException {
+        Path missing = new File(dir.getRoot(), "none/naval.conf.compiled")
+            .toPath();
+        ConfigCache.store(missing, CHECKSUM, navalMachine());
+        assertFalse(Files.exists(missing));
+    }
+
+}
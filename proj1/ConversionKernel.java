@@ -0,0 +1,34 @@
+package enigma;
+
+/** Conversion loops that pass the values of several characters through
+ *  the rotor tables at once.  The one implementation, VectorKernel, uses
+ *  the incubating Vector API, so it is not part of this package's
+ *  sources: it is compiled only with the benchmarks (see bench/pom.xml),
+ *  and CompiledMachine loads it by name, and only when asked to.
+ *  @author Yiwen Feng
+ */
+interface ConversionKernel {
+
+    /** Return the number of values converted at once. */
+    int length();
+
+    /** Replace VALUE[L] for each lane L among ACTIVE[0 .. LIVE-1], in
+     *  groups of length() from the first, with the result of passing it
+     *  through the rotor tables FORWARD and BACKWARD, laid out as in
+     *  LaneMachine, at offsets BASE[S][L] for the slots S = RIGHT .. 0 and
+     *  then back through slots 1 .. RIGHT.  INDEX is scratch space of
+     *  length() elements.  Returns the number of entries of ACTIVE done,
+     *  leaving the rest to the caller. */
+    int rotate(int[] forward, int[] backward, int[][] base, int right,
+               int[] value, int[] active, int live, int[] index);
+
+    /** Store into ROW[P], for P from 0 in groups of length(), the result
+     *  of passing P through PLUGBOARD, the rotor tables FORWARD and
+     *  BACKWARD, laid out as in CompiledMachine, at offsets BASE[RIGHT]
+     *  .. BASE[0] and back through BASE[1] .. BASE[RIGHT], and PLUGBOARD
+     *  again.  INDEX is scratch space of length() elements.  Returns the
+     *  number of entries of ROW done, leaving the rest to the caller. */
+    int mapping(int[] plugboard, int[] forward, int[] backward, int[] base,
+                int right, int[] row, int[] index);
+
+}
@@ -1,17 +1,33 @@
-package enigma;
-
-import static enigma.EnigmaException.*;
-
-/** Class that represents a rotor that has no ratchet and does not advance.
- *  @author Yiwen Feng
- */
-class FixedRotor extends Rotor {
-
-    /** A non-moving rotor named NAME whose permutation at the 0 setting
-     * is given by PERM. */
-    FixedRotor(String name, Permutation perm) {
-        super(name, perm);
-        _setting = 0;
-    }
-
-}
+package enigma;
+
+import static enigma.EnigmaException.*;
+
+/** Class that represents a rotor that has no ratchet and does not advance.
+ *  @author Yiwen Feng
+ */
+class FixedRotor extends Rotor {
+
+    /** A non-moving rotor named NAME whose permutation at the 0 setting
+     * is given by PERM. */
+    FixedRotor(String name, Permutation perm) {
+        super(name, perm);
+    }
+
+    /** A non-moving rotor named NAME with permutation PERM whose
+     *  conversion tables are FORWARD and BACKWARD (see Rotor). */
+    FixedRotor(String name, Permutation perm, int[] forward,
+               int[] backward) {
+        super(name, perm, forward, backward);
+    }
+
+    /** A rotor with the same name, wiring, setting and ring as PROTO. */
+    FixedRotor(FixedRotor proto) {
+        super(proto);
+    }
+
+    @Override
+    FixedRotor copy() {
+        return new FixedRotor(this);
+    }
+
+}
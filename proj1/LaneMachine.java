@@ -0,0 +1,289 @@
+package enigma;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static enigma.EnigmaException.*;
+
+/** A set of independent machines, or lanes, sharing one configuration,
+ *  that convert messages together one character position at a time.  The
+ *  state of each lane is held in structure-of-arrays form: for each slot,
+ *  one array holds the rotor, ring and setting of every lane, while the
+ *  conversion tables of all available rotors are shared.  Each lane steps
+ *  and converts exactly as Machine.machineAdvance and Machine.convert
+ *  would for a machine set up as it is.
+ *  @author Yiwen Feng
+ */
+final class LaneMachine {
+
+    /** A LaneMachine with LANES lanes, having the alphabet, slots, pawls
+     *  and available rotors of CONFIG, whose alphabet must be small enough
+     *  for the rotors to have conversion tables. */
+    LaneMachine(Machine config, int lanes) {
+        Alphabet alpha = config.alphabet();
+        int n = alpha.size();
+        if (!Rotor.tabulated(n)) {
+            throw error("alphabet of %d characters is too large for lanes",
+                        n);
+        }
+        int slots = config.numRotors();
+        _size = n;
+        _lanes = lanes;
+        _right = slots - 1;
+        _left = slots - config.numPawls();
+        _chars = new char[n];
+        char max = 0;
+        for (int k = 0; k < n; k++) {
+            _chars[k] = alpha.toChar(k);
+            max = (char) Math.max(max, _chars[k]);
+        }
+        _index = new int[max + 1];
+        for (int c = 0; c <= max; c++) {
+            _index[c] = alpha.contains((char) c) ? alpha.toInt((char) c) : -1;
+        }
+        int count = config.allRotors().size();
+        _forward = new int[count * n * n];
+        _backward = new int[count * n * n];
+        _notch = new boolean[count * n];
+        int k = 0;
+        for (Rotor r : config.allRotors()) {
+            System.arraycopy(r.forwardTable(), 0, _forward, k * n * n, n * n);
+            System.arraycopy(r.backwardTable(), 0, _backward, k * n * n,
+                             n * n);
+            for (int p = 0; p < n; p++) {
+                _notch[k * n + p] = r.notchAt(p);
+            }
+            _rotorIndex.putIfAbsent(r.name(), k);
+            k++;
+        }
+        _plugboard = new int[lanes * n];
+        _table = new int[slots][lanes];
+        _notchOff = new int[slots][lanes];
+        _ring = new int[slots][lanes];
+        _pos = new int[slots][lanes];
+        _base = new int[slots][lanes];
+        _value = new int[lanes];
+        _vector = CompiledMachine.vectorized(n);
+        _gather = new int[CompiledMachine.VECTOR_LENGTH];
+    }
+
+    /** Return the number of my lanes. */
+    int lanes() {
+        return _lanes;
+    }
+
+    /** Set lane LANE to the rotors, settings, rings and plugboard of
+     *  MACHINE, which must have my configuration. */
+    void load(int lane, Machine machine) {
+        int n = _size;
+        for (int s = 0; s <= _right; s++) {
+            Rotor r = machine.rotor(s);
+            int k = _rotorIndex.get(r.name());
+            _table[s][lane] = k * n * n;
+            _notchOff[s][lane] = k * n;
+            _ring[s][lane] = r.distance();
+            set(s, lane, r.setting());
+        }
+        Permutation plugboard = machine.plugboard();
+        for (int p = 0; p < n; p++) {
+            _plugboard[lane * n + p] =
+                plugboard == null ? p : plugboard.permute(p);
+        }
+    }
+
+    /** Return the setting of the rotor in slot SLOT of lane LANE. */
+    int setting(int lane, int slot) {
+        return _pos[slot][lane];
+    }
+
+    /** Converts each of the messages IN[0 .. COUNT-1], which contain no
+     *  blanks, on the lane of the same number, storing the result for
+     *  IN[K] into OUT[K], which may be IN[K].  Updates the settings of the
+     *  lanes accordingly.  At each character position, all lanes whose
+     *  messages are that long are first stepped and then converted
+     *  together, one slot at a time. */
+    void convert(char[][] in, char[][] out, int count) {
+        long[] order = new long[count];
+        for (int k = 0; k < count; k++) {
+            order[k] = ((long) -in[k].length << 32) | k;
+        }
+        Arrays.sort(order);
+        int[] active = new int[count];
+        for (int m = 0; m < count; m++) {
+            active[m] = (int) order[m];
+        }
+        int live = count;
+        for (int j = 0; live > 0; j++) {
+            while (live > 0 && in[active[live - 1]].length <= j) {
+                live--;
+            }
+            advance(active, live);
+            int[] index = _index;
+            int[] value = _value;
+            int[] plugboard = _plugboard;
+            int n = _size;
+            for (int m = 0; m < live; m++) {
+                int l = active[m];
+                char c = in[l][j];
+                int p = c < index.length ? index[c] : -1;
+                if (p < 0) {
+                    throw error("The character is not in alphabet in A");
+                }
+                value[l] = plugboard[l * n + p];
+            }
+            rotate(active, live);
+            for (int m = 0; m < live; m++) {
+                int l = active[m];
+                out[l][j] = _chars[plugboard[l * n + value[l]]];
+            }
+            if (Metrics.ENABLED) {
+                Metrics.CHARACTERS.add(live);
+            }
+        }
+        if (Metrics.ENABLED) {
+            Metrics.STEPS.add(_steps);
+            Metrics.DOUBLE_STEPS.add(_doubleSteps);
+            _steps = _doubleSteps = 0;
+        }
+    }
+
+    /** Advance the lanes ACTIVE[0 .. LIVE-1] as Machine.machineAdvance
+     *  would, one slot at a time from the left, so that, as there, each
+     *  rotor's notch is examined before that rotor moves. */
+    private void advance(int[] active, int live) {
+        boolean[] notch = _notch;
+        for (int s = _left; s < _right; s++) {
+            int[] nextOff = _notchOff[s + 1];
+            int[] nextPos = _pos[s + 1];
+            int[] off = _notchOff[s];
+            int[] pos = _pos[s];
+            boolean inner = s > _left;
+            for (int m = 0; m < live; m++) {
+                int l = active[m];
+                if (notch[nextOff[l] + nextPos[l]]) {
+                    step(s, l);
+                } else if (inner && notch[off[l] + pos[l]]) {
+                    step(s, l);
+                    if (Metrics.ENABLED) {
+                        _doubleSteps++;
+                    }
+                }
+            }
+        }
+        if (_left <= _right) {
+            for (int m = 0; m < live; m++) {
+                step(_right, active[m]);
+            }
+        }
+    }
+
+    /** Advance the rotor in slot SLOT of lane LANE by one position. */
+    private void step(int slot, int lane) {
+        int n = _size;
+        int[] table = _table[slot];
+        int posn = _pos[slot][lane] + 1;
+        int base = _base[slot][lane] + n;
+        if (posn == n) {
+            posn = 0;
+        }
+        if (base == table[lane] + n * n) {
+            base = table[lane];
+        }
+        _pos[slot][lane] = posn;
+        _base[slot][lane] = base;
+        if (Metrics.ENABLED) {
+            _steps++;
+        }
+    }
+
+    /** Replace _value[L] for each lane L among ACTIVE[0 .. LIVE-1] with the
+     *  result of passing it forward through that lane's rotors, off the
+     *  reflector, and back.  For 26-letter alphabets, whole vectors of
+     *  lanes are done by CompiledMachine.KERNEL where it is loaded, and
+     *  only the remainder here. */
+    private void rotate(int[] active, int live) {
+        int[] value = _value;
+        int first = 0;
+        if (_vector) {
+            first = CompiledMachine.KERNEL.rotate(_forward, _backward, _base,
+                                                  _right, value, active, live,
+                                                  _gather);
+        }
+        for (int s = _right; s >= 0; s--) {
+            int[] base = _base[s];
+            for (int m = first; m < live; m++) {
+                int l = active[m];
+                value[l] = _forward[base[l] + value[l]];
+            }
+        }
+        for (int s = 1; s <= _right; s++) {
+            int[] base = _base[s];
+            for (int m = first; m < live; m++) {
+                int l = active[m];
+                value[l] = _backward[base[l] + value[l]];
+            }
+        }
+    }
+
+    /** Set the rotor in slot SLOT of lane LANE to setting POSN. */
+    private void set(int slot, int lane, int posn) {
+        int shift = posn - _ring[slot][lane];
+        if (shift < 0) {
+            shift += _size;
+        }
+        _pos[slot][lane] = posn;
+        _base[slot][lane] = _table[slot][lane] + shift * _size;
+    }
+
+    /** Size of my alphabet. */
+    private final int _size;
+    /** Number of lanes. */
+    private final int _lanes;
+    /** Slot of the leftmost moving rotor. */
+    private final int _left;
+    /** Slot of the rightmost rotor. */
+    private final int _right;
+    /** The characters of my alphabet, by index. */
+    private final char[] _chars;
+    /** The index of each character up to the largest in my alphabet, or
+     *  -1 for characters not in it. */
+    private final int[] _index;
+    /** The position of each available rotor among the available rotors,
+     *  by name. */
+    private final HashMap<String, Integer> _rotorIndex = new HashMap<>();
+    /** The forward conversion tables of all available rotors (as laid out
+     *  by Rotor.forwardTable()), one after another. */
+    private final int[] _forward;
+    /** The backward conversion tables, laid out as _forward. */
+    private final int[] _backward;
+    /** Whether available rotor #K is at a notch in setting P, at index
+     *  K * size + P. */
+    private final boolean[] _notch;
+    /** The plugboard permutation of lane L, by index, starting at index
+     *  L * size. */
+    private final int[] _plugboard;
+    /** For each slot and lane, the offset of that rotor's tables in
+     *  _forward and _backward. */
+    private final int[][] _table;
+    /** For each slot and lane, the offset of that rotor's notches in
+     *  _notch. */
+    private final int[][] _notchOff;
+    /** For each slot and lane, the ring setting. */
+    private final int[][] _ring;
+    /** For each slot and lane, the current setting. */
+    private final int[][] _pos;
+    /** For each slot and lane, the offset into _forward and _backward of
+     *  the row for the current setting and ring. */
+    private final int[][] _base;
+    /** The value of the character being converted in each lane. */
+    private final int[] _value;
+    /** True iff rotate uses CompiledMachine.KERNEL. */
+    private final boolean _vector;
+    /** Scratch space for the gathers of CompiledMachine.KERNEL. */
+    private final int[] _gather;
+    /** Rotor steps not yet added to Metrics.STEPS. */
+    private long _steps;
+    /** Double steps not yet added to Metrics.DOUBLE_STEPS. */
+    private long _doubleSteps;
+
+}
@@ -1,139 +1,429 @@
-package enigma;
-
-import java.util.ArrayList;
-import java.util.Collection;
-
-import static enigma.EnigmaException.*;
-
-/** Class that represents a complete enigma machine.
- *  @author Yiwen Feng
- */
-class Machine {
-
-    /** A new Enigma machine with alphabet ALPHA, 1 < NUMROTORS rotor slots,
-     *  and 0 <= PAWLS < NUMROTORS pawls.  ALLROTORS contains all the
-     *  available rotors. */
-    Machine(Alphabet alpha, int numRotors, int pawls,
-            Collection<Rotor> allRotors) {
-        _alphabet = alpha;
-        _numRotors = numRotors;
-        _pawls = pawls;
-        _allRotors = allRotors;
-    }
-
-    /** Return the number of rotor slots I have. */
-    int numRotors() {
-        return _numRotors;
-    }
-
-    /** Return the number pawls (and thus rotating rotors) I have. */
-    int numPawls() {
-        return _pawls;
-    }
-
-    /** Set my rotor slots to the rotors named ROTORS from my set of
-     *  available rotors (ROTORS[0] names the reflector).
-     *  Initially, all rotors are set at their 0 setting. */
-    void insertRotors(String[] rotors) {
-        for (String s:rotors) {
-            for (Rotor t:_allRotors) {
-                if (t.name().equals(s)) {
-                    myrotors.add(t);
-                }
-            }
-        }
-    }
-
-    /** Set my rotors according to SETTING, which must be a string of
-     *  numRotors()-1 characters in my alphabet. The first letter refers
-     *  to the leftmost rotor setting (not counting the reflector).  */
-    void setRotors(String setting) {
-        for (int i = 0; i < numRotors() - 1; i++) {
-            myrotors.get(i + 1).set(setting.charAt(i));
-        }
-    }
-
-    /** Set the plugboard to PLUGBOARD. */
-    void setPlugboard(Permutation plugboard) {
-        _plugboard = plugboard;
-    }
-
-    /** Make the rotor advance.*/
-    void machineAdvance() {
-        myrotors.get(numRotors() - 1).setneedrotate();
-        for (int i = numRotors() - 1; i > numRotors() - numPawls(); i--) {
-            if (myrotors.get(i).atNotch()) {
-                myrotors.get(i).setneedrotate();
-                myrotors.get(i - 1).setneedrotate();
-            }
-        }
-        for (int i = numRotors() - 1; i >= numRotors() - numPawls(); i--) {
-            if (myrotors.get(i).needrotate()) {
-                myrotors.get(i).advance();
-                myrotors.get(i).freenotch();
-            }
-        }
-    }
-    /** Returns the result of converting the input character C (as an
-     *  index in the range 0..alphabet size - 1), after first advancing
-     *  the machine. */
-    int convert(int c) {
-        int value;
-        value = _plugboard.permute(c);
-        machineAdvance();
-        for (int i = myrotors.size() - 1; i >= 0; i--) {
-            Rotor thisRotor = myrotors.get(i);
-            value = thisRotor.convertForward(value);
-        }
-        for (int i = 1; i < myrotors.size(); i++) {
-            Rotor thisRotor = myrotors.get(i);
-            value = thisRotor.convertBackward(value);
-        }
-        value = _plugboard.permute(value);
-        return value;
-    }
-
-    /** Returns the encoding/decoding of MSG, updating the state of
-     *  the rotors accordingly. */
-    String convert(String msg) {
-        String ans = new String();
-        for (int i = 0; i < msg.length(); i++) {
-            if (msg.charAt(i) == ' ') {
-                continue;
-            }
-            ans += _alphabet.toChar(convert(_alphabet.toInt(msg.charAt(i))));
-        }
-        return ans;
-    }
-
-    /** Reset the machine.*/
-    void reset() {
-        myrotors.clear();
-        for (Rotor r:_allRotors) {
-            r.clearused();
-        }
-    }
-
-    /** Set the ring.
-     * @param t  */
-    void setRing(String t) {
-        for (int i = 1; i < numRotors(); i++) {
-            myrotors.get(i).setRing(t.charAt(i - 1));
-        }
-    }
-
-
-    /** Common alphabet of my rotors. */
-    private final Alphabet _alphabet;
-    /** Number of the rotors. */
-    private int _numRotors;
-    /** Number of the pawls. */
-    private int _pawls;
-    /** Collection of the available rotars. */
-    private Collection<Rotor> _allRotors;
-    /** Plugboard. */
-    private Permutation _plugboard;
-    /** Arraylist of my rotars. */
-    private ArrayList<Rotor> myrotors = new ArrayList<>();
-
-}
+package enigma;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+import static enigma.EnigmaException.*;
+
+/** Class that represents a complete enigma machine.
+ *  @author Yiwen Feng
+ */
+class Machine {
+
+    /** A new Enigma machine with alphabet ALPHA, 1 < NUMROTORS rotor slots,
+     *  and 0 <= PAWLS < NUMROTORS pawls.  ALLROTORS contains all the
+     *  available rotors.  These serve only as definitions: the machine
+     *  inserts copies of them and never changes them, so any number of
+     *  machines may share the same ALLROTORS. */
+    Machine(Alphabet alpha, int numRotors, int pawls,
+            Collection<Rotor> allRotors) {
+        _alphabet = alpha;
+        _numRotors = numRotors;
+        _pawls = pawls;
+        _allRotors = allRotors;
+    }
+
+    /** Return my alphabet. */
+    Alphabet alphabet() {
+        return _alphabet;
+    }
+
+    /** Return my available rotors. */
+    Collection<Rotor> allRotors() {
+        return _allRotors;
+    }
+
+    /** Return the number of rotor slots I have. */
+    int numRotors() {
+        return _numRotors;
+    }
+
+    /** Return the number pawls (and thus rotating rotors) I have. */
+    int numPawls() {
+        return _pawls;
+    }
+
+    /** Return the rotor inserted in slot K (0 being the reflector). */
+    Rotor rotor(int k) {
+        return myrotors.get(k);
+    }
+
+    /** Return my plugboard. */
+    Permutation plugboard() {
+        return _plugboard;
+    }
+
+    /** Set my rotor slots to the rotors named ROTORS from my set of
+     *  available rotors (ROTORS[0] names the reflector).
+     *  Initially, all rotors are set at their 0 setting. */
+    void insertRotors(String[] rotors) {
+        for (String s:rotors) {
+            for (Rotor t:_allRotors) {
+                if (t.name().equals(s)) {
+                    Rotor r = t.copy();
+                    r.setRing(_alphabet.toChar(0));
+                    r.set(0);
+                    myrotors.add(r);
+                }
+            }
+        }
+        _stepper = null;
+    }
+
+    /** Set my rotors according to SETTING, which must be a string of
+     *  numRotors()-1 characters in my alphabet. The first letter refers
+     *  to the leftmost rotor setting (not counting the reflector).  */
+    void setRotors(String setting) {
+        for (int i = 0; i < numRotors() - 1; i++) {
+            myrotors.get(i + 1).set(setting.charAt(i));
+        }
+    }
+
+    /** Set the plugboard to PLUGBOARD. */
+    void setPlugboard(Permutation plugboard) {
+        _plugboard = plugboard;
+    }
+
+    /** Make the rotor advance.*/
+    void machineAdvance() {
+        int right = numRotors() - 1;
+        int left = numRotors() - numPawls();
+        for (int i = left; i <= right; i++) {
+            Rotor r = myrotors.get(i);
+            boolean carried = i == right || myrotors.get(i + 1).atNotch();
+            if (carried || (i > left && r.atNotch())) {
+                r.advance();
+                if (Metrics.ENABLED) {
+                    Metrics.STEPS.increment();
+                    if (!carried) {
+                        Metrics.DOUBLE_STEPS.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    /** Advance my rotors as if N characters had been converted, without
+     *  stepping through the intermediate positions. */
+    void skip(long n) {
+        int[] pos = movingSettings();
+        stepper().skip(pos, n);
+        setMoving(pos);
+    }
+
+    /** Return my stepping schedule, building it if need be. */
+    private Stepper stepper() {
+        if (_stepper == null) {
+            _stepper = new Stepper(myrotors.subList(numRotors() - numPawls(),
+                                                    numRotors()),
+                                   _alphabet.size());
+        }
+        return _stepper;
+    }
+
+    /** Return the settings of my moving rotors, from left to right. */
+    private int[] movingSettings() {
+        int left = numRotors() - numPawls();
+        int[] pos = new int[numPawls()];
+        for (int j = 0; j < pos.length; j++) {
+            pos[j] = myrotors.get(left + j).setting();
+        }
+        return pos;
+    }
+
+    /** Set my moving rotors, from left to right, to the settings POS. */
+    private void setMoving(int[] pos) {
+        int left = numRotors() - numPawls();
+        for (int j = 0; j < pos.length; j++) {
+            myrotors.get(left + j).set(pos[j]);
+        }
+    }
+
+    /** Returns the result of converting the input character C (as an
+     *  index in the range 0..alphabet size - 1), after first advancing
+     *  the machine. */
+    int convert(int c) {
+        machineAdvance();
+        if (Metrics.ENABLED) {
+            Metrics.CHARACTERS.increment();
+        }
+        return scramble(c);
+    }
+
+    /** Returns the result of passing C through the plugboard, the rotors
+     *  in their current positions, and the plugboard again. */
+    private int scramble(int c) {
+        int value;
+        value = _plugboard.permute(c);
+        for (int i = myrotors.size() - 1; i >= 0; i--) {
+            Rotor thisRotor = myrotors.get(i);
+            value = thisRotor.convertForward(value);
+        }
+        for (int i = 1; i < myrotors.size(); i++) {
+            Rotor thisRotor = myrotors.get(i);
+            value = thisRotor.convertBackward(value);
+        }
+        value = _plugboard.permute(value);
+        return value;
+    }
+
+    /** Returns the encoding/decoding of MSG, updating the state of
+     *  the rotors accordingly. */
+    String convert(String msg) {
+        char[] buf = msg.toCharArray();
+        int n = convert(buf, 0, buf.length, buf);
+        return new String(buf, 0, n);
+    }
+
+    /** Converts the LEN characters of IN starting at OFF, skipping blanks,
+     *  into OUT starting at index 0, updating the state of the rotors
+     *  accordingly.  Returns the number of characters stored into OUT.
+     *  IN and OUT may be the same array. */
+    int convert(char[] in, int off, int len, char[] out) {
+        return convert(in, off, len, out, 0);
+    }
+
+    /** Converts the LEN characters of IN starting at OFF, skipping blanks,
+     *  into OUT starting at OUTOFF, updating the state of the rotors
+     *  accordingly.  Returns the number of characters stored into OUT.
+     *  IN and OUT may be the same array provided that OUTOFF <= OFF.
+     *  Uses my compiled form unless my alphabet is too large for rotor
+     *  conversion tables. */
+    int convert(char[] in, int off, int len, char[] out, int outOff) {
+        if (!Rotor.tabulated(_alphabet.size())) {
+            int k = outOff;
+            for (int i = off; i < off + len; i++) {
+                if (in[i] != ' ') {
+                    if (!_alphabet.contains(in[i])) {
+                        throw error("The character is not in alphabet in A");
+                    }
+                    out[k] = _alphabet.toChar(convert(_alphabet.toInt(in[i])));
+                    k++;
+                }
+            }
+            return k - outOff;
+        }
+        CompiledMachine compiled = compiled();
+        try {
+            return compiled.convert(in, off, len, out, outOff);
+        } finally {
+            compiled.store(myrotors);
+        }
+    }
+
+    /** Converts the bytes IN[FROM .. TO-1] into OUT in groups of five,
+     *  as CompiledMachine.transcribe does given GROUP, updating the state
+     *  of the rotors accordingly.  Returns the new count of letters on
+     *  the output line. */
+    int transcribe(ByteBuffer in, int from, int to, ByteBuffer out,
+                   int group) {
+        CompiledMachine compiled = compiled();
+        try {
+            return compiled.transcribe(in, from, to, out, group);
+        } finally {
+            compiled.store(myrotors);
+        }
+    }
+
+    /** Returns the encodings/decodings of MSGS, each converted as
+     *  convert(String) would from my current rotor settings, which are
+     *  left unchanged.  This is much faster than converting each message
+     *  in turn when there are many messages. */
+    String[] convertEach(String[] msgs) {
+        if (!Rotor.tabulated(_alphabet.size())) {
+            int[] saved = new int[myrotors.size()];
+            for (int i = 0; i < saved.length; i++) {
+                saved[i] = myrotors.get(i).setting();
+            }
+            String[] result = new String[msgs.length];
+            for (int k = 0; k < msgs.length; k++) {
+                result[k] = convert(msgs[k]);
+                for (int i = 0; i < saved.length; i++) {
+                    myrotors.get(i).set(saved[i]);
+                }
+            }
+            return result;
+        }
+        char[][] bufs = new char[msgs.length][];
+        for (int k = 0; k < msgs.length; k++) {
+            char[] buf = msgs[k].toCharArray();
+            int n = 0;
+            for (char c : buf) {
+                if (c != ' ') {
+                    buf[n] = c;
+                    n++;
+                }
+            }
+            bufs[k] = n == buf.length ? buf : Arrays.copyOf(buf, n);
+        }
+        compiled().convertEach(bufs, bufs, bufs.length);
+        String[] result = new String[msgs.length];
+        for (int k = 0; k < msgs.length; k++) {
+            result[k] = new String(bufs[k]);
+        }
+        return result;
+    }
+
+    /** Return my compiled form, with rotor settings equal to mine.  The
+     *  form compiled last is kept, with its cache of mappings, for as
+     *  long as my rotors, rings and plugboard stay as they were then, or
+     *  are set back to that. */
+    private CompiledMachine compiled() {
+        if (_compiled == null || !_compiled.matches(myrotors, _plugboard)) {
+            _compiled = compile();
+        } else {
+            _compiled.load(myrotors);
+        }
+        return _compiled;
+    }
+
+    /** Converts the LEN characters of IN starting at OFF, skipping blanks,
+     *  into OUT starting at index 0, exactly as convert(IN, OFF, LEN, OUT)
+     *  would, but splitting long messages into chunks that are converted
+     *  concurrently on copies of this machine, each set to the rotor
+     *  state at the start of its chunk.  Those states are found first in
+     *  one pass that skips from each to the next, so that the rotors are
+     *  stepped through the message at most once even when my stepping
+     *  schedule is too large to tabulate.  Returns the number of
+     *  characters stored into OUT.  IN and OUT may be the same array.
+     *  The chunks are run in the ForkJoinPool of the calling task, if
+     *  any, and otherwise in the common pool.  If IN holds a character
+     *  not in my alphabet, my rotors are left as convert would leave
+     *  them. */
+    int convertParallel(char[] in, int off, int len, char[] out) {
+        int n = 0;
+        for (int i = off; i < off + len; i++) {
+            if (in[i] != ' ') {
+                if (!_alphabet.contains(in[i])) {
+                    skip(n);
+                    throw error("The character is not in alphabet in A");
+                }
+                out[n] = in[i];
+                n++;
+            }
+        }
+        ForkJoinPool pool = ForkJoinTask.getPool();
+        int threads = pool == null ? ForkJoinPool.getCommonPoolParallelism()
+            : pool.getParallelism();
+        int chunks = Math.min(4 * threads, n / MIN_PARALLEL_CHUNK);
+        if (chunks <= 1) {
+            return convert(out, 0, n, out);
+        }
+        int[] bounds = new int[chunks + 1];
+        int[][] starts = new int[chunks][];
+        int[] pos = movingSettings();
+        for (int k = 0; k < chunks; k++) {
+            bounds[k] = (int) ((long) n * k / chunks);
+            stepper().skip(pos, k == 0 ? 0 : bounds[k] - bounds[k - 1]);
+            starts[k] = pos.clone();
+        }
+        bounds[chunks] = n;
+        IntStream.range(0, chunks).parallel().forEach(k -> {
+            Machine m = copy();
+            m.setMoving(starts[k]);
+            m.convert(out, bounds[k], bounds[k + 1] - bounds[k], out,
+                      bounds[k]);
+        });
+        stepper().skip(pos, n - bounds[chunks - 1]);
+        setMoving(pos);
+        return n;
+    }
+
+    /** Converts the remaining characters of IN, skipping blanks, into
+     *  OUT, updating the state of the rotors accordingly.  Stops when
+     *  either IN is exhausted or OUT is full. */
+    void convert(CharBuffer in, CharBuffer out) {
+        char[] buf = null;
+        while (in.hasRemaining() && out.hasRemaining()) {
+            int len = Math.min(in.remaining(), out.remaining());
+            if (in.hasArray() && out.hasArray()
+                && (in.array() != out.array()
+                    || out.arrayOffset() + out.position()
+                       <= in.arrayOffset() + in.position())) {
+                int n = convert(in.array(), in.arrayOffset() + in.position(),
+                                len, out.array(),
+                                out.arrayOffset() + out.position());
+                in.position(in.position() + len);
+                out.position(out.position() + n);
+            } else {
+                if (buf == null) {
+                    buf = new char[Math.min(len, BUFFER_CHUNK)];
+                }
+                len = Math.min(len, buf.length);
+                in.get(buf, 0, len);
+                out.put(buf, 0, convert(buf, 0, len, buf));
+            }
+        }
+    }
+
+    /** Reset the machine.*/
+    void reset() {
+        _stepper = null;
+        myrotors.clear();
+    }
+
+    /** Return a new machine with my alphabet, slots, pawls and available
+     *  rotors, and copies of my inserted rotors, with the same settings,
+     *  rings and plugboard as mine, and my stepping schedule, if built.
+     *  The two machines share no mutable state. */
+    Machine copy() {
+        Machine result = new Machine(_alphabet, _numRotors, _pawls,
+                                     _allRotors);
+        for (Rotor r : myrotors) {
+            result.myrotors.add(r.copy());
+        }
+        result._plugboard = _plugboard;
+        result._stepper = _stepper;
+        return result;
+    }
+
+    /** Return a CompiledMachine that converts exactly as I would from my
+     *  current rotor settings.  Later changes to either machine do not
+     *  affect the other.  My alphabet must be small enough for rotor
+     *  conversion tables. */
+    CompiledMachine compile() {
+        return new CompiledMachine(_alphabet, myrotors, _pawls, _plugboard);
+    }
+
+    /** Set the ring.
+     * @param t  */
+    void setRing(String t) {
+        for (int i = 1; i < numRotors(); i++) {
+            myrotors.get(i).setRing(t.charAt(i - 1));
+        }
+    }
+
+    /** Largest number of characters converted at a time from a buffer
+     *  that is not backed by an array. */
+    private static final int BUFFER_CHUNK = 1 << 12;
+
+    /** Smallest number of characters converted by one task in
+     *  convertParallel. */
+    private static final int MIN_PARALLEL_CHUNK = 1 << 14;
+
+
+    /** Common alphabet of my rotors. */
+    private final Alphabet _alphabet;
+    /** Number of the rotors. */
+    private int _numRotors;
+    /** Number of the pawls. */
+    private int _pawls;
+    /** Collection of the available rotars. */
+    private Collection<Rotor> _allRotors;
+    /** Plugboard. */
+    private Permutation _plugboard;
+    /** Arraylist of my rotars. */
+    private ArrayList<Rotor> myrotors = new ArrayList<>();
+    /** Stepping schedule of my moving rotors, built on first use. */
+    private Stepper _stepper;
+    /** Compiled form of my configuration used by bulk conversions, built
+     *  on first use and again whenever my configuration changes. */
+    private CompiledMachine _compiled;
+
+}
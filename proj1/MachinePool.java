@@ -0,0 +1,59 @@
+package enigma;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** A thread-safe source of independent machines that all have the
+ *  configuration of one prototype.  A machine obtained from acquire()
+ *  belongs to the calling thread until it is handed back by release().
+ *  @author Yiwen Feng
+ */
+class MachinePool {
+
+    /** A pool of copies of PROTOTYPE, keeping at most MAXIDLE idle
+     *  machines for reuse.  PROTOTYPE itself is not used afterwards. */
+    MachinePool(Machine prototype, int maxIdle) {
+        _prototype = prototype.copy();
+        _maxIdle = maxIdle;
+    }
+
+    /** A pool of copies of PROTOTYPE, keeping one idle machine per
+     *  available processor. */
+    MachinePool(Machine prototype) {
+        this(prototype, Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Return a machine with my prototype's configuration that no other
+     *  thread is using.  Its rotors and plugboard are those of the
+     *  prototype, or of the last setting applied before it was released;
+     *  callers normally reset and set it up before use. */
+    Machine acquire() {
+        Machine result = _idle.poll();
+        if (result == null) {
+            return _prototype.copy();
+        }
+        _numIdle.decrementAndGet();
+        return result;
+    }
+
+    /** Return MACHINE, obtained from acquire(), to the pool.  The caller
+     *  must not use MACHINE afterwards. */
+    void release(Machine machine) {
+        if (_numIdle.incrementAndGet() <= _maxIdle) {
+            _idle.offer(machine);
+        } else {
+            _numIdle.decrementAndGet();
+        }
+    }
+
+    /** The configuration copied by acquire(); never modified. */
+    private final Machine _prototype;
+    /** Largest number of idle machines kept. */
+    private final int _maxIdle;
+    /** Machines released and not yet reacquired. */
+    private final ConcurrentLinkedQueue<Machine> _idle =
+        new ConcurrentLinkedQueue<>();
+    /** Approximate number of machines in _idle. */
+    private final AtomicInteger _numIdle = new AtomicInteger();
+
+}
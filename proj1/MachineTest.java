@@ -0,0 +1,455 @@
+package enigma;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+
+import static enigma.TestUtils.*;
+
+/** The suite of all JUnit tests for the Machine class.
+ *  @author Yiwen Feng
+ */
+public class MachineTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /* ***** TESTING UTILITIES ***** */
+
+    /** Notches of the naval moving rotors. */
+    private static final String[][] NOTCHES = {
+        { "I", "Q" }, { "II", "E" }, { "III", "V" }, { "IV", "J" },
+        { "V", "Z" }, { "VI", "ZM" }, { "VII", "ZM" }, { "VIII", "ZM" },
+    };
+
+    /** Return a new 5-slot, 3-pawl machine holding the naval rotors. */
+    static Machine navalMachine() {
+        ArrayList<Rotor> rotors = new ArrayList<>();
+        for (String[] rotor : NOTCHES) {
+            rotors.add(new MovingRotor(rotor[0],
+                                       new Permutation(NAVALA.get(rotor[0]),
+                                                       UPPER),
+                                       rotor[1]));
+        }
+        for (String name : new String[] { "Beta", "Gamma" }) {
+            rotors.add(new FixedRotor(name,
+                                      new Permutation(NAVALA.get(name),
+                                                      UPPER)));
+        }
+        for (String name : new String[] { "B", "C" }) {
+            rotors.add(new Reflector(name,
+                                     new Permutation(NAVALA.get(name),
+                                                     UPPER)));
+        }
+        return new Machine(UPPER, 5, 3, rotors);
+    }
+
+    /** Return M after setting it up with ROTORS, SETTING, RING and
+     *  PLUGBOARD. */
+    static Machine setUp(Machine m, String[] rotors, String setting,
+                         String ring, String plugboard) {
+        m.reset();
+        m.insertRotors(rotors);
+        m.setRotors(setting);
+        m.setRing(ring);
+        m.setPlugboard(new Permutation(plugboard, UPPER));
+        return m;
+    }
+
+    /** Rotors used in the tests. */
+    private static final String[] ROTORS = { "B", "Beta", "III", "IV", "I" };
+
+    /* ***** TESTS ***** */
+
+    @Test
+    public void checkConvert() {
+        Machine m = setUp(navalMachine(), ROTORS, "AXLE", "AAAA",
+                          "(HQ) (EX) (IP) (TR) (BY)");
+        assertEquals("QVPQSOKOILPUBKJZPISFXDW",
+                     m.convert("FROM HIS SHOULDER HIAWATHA"));
+    }
+
+    @Test
+    public void checkReciprocal() {
+        Machine m = setUp(navalMachine(), ROTORS, "AXLE", "AAAA",
+                          "(HQ) (EX) (IP) (TR) (BY)");
+        String msg = m.convert("FROM HIS SHOULDER HIAWATHA");
+        m.setRotors("AXLE");
+        assertEquals("FROMHISSHOULDERHIAWATHA", m.convert(msg));
+    }
+
+    @Test
+    public void checkRekey() {
+        Machine m = navalMachine();
+        for (int k = 0; k < 3; k++) {
+            setUp(m, ROTORS, "AXLE", "AAAA", "(HQ) (EX) (IP) (TR) (BY)");
+            assertEquals("QVPQSOKOILPUBKJZPISFXDW",
+                         m.convert("FROM HIS SHOULDER HIAWATHA"));
+            setUp(m, ROTORS, "AXLE", "AAAA", "");
+            assertNotEquals("QVPQSOKOILPUBKJZPISFXDW",
+                            m.convert("FROM HIS SHOULDER HIAWATHA"));
+        }
+    }
+
+    @Test
+    public void checkRekeySameSettings() {
+        String plug = "(HQ) (EX) (IP) (TR) (BY)";
+        Machine m = setUp(navalMachine(), ROTORS, "AXLE", "AAAA", plug);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 700; i++) {
+            text.append(UPPER_STRING.charAt(i * i % 26));
+        }
+        for (int k = 0; k < 40; k++) {
+            String setting = k % 3 == 0 ? "QDYL" : "AXLE";
+            String msg = text.substring(k * 17 % 50, 700 - k * 13 % 200);
+            m.setRotors(setting);
+            if (k == 20) {
+                m.setPlugboard(new Permutation("(AB)", UPPER));
+            } else if (k == 30) {
+                m.setRing("BCDE");
+            }
+            Machine expected = setUp(navalMachine(), ROTORS, setting,
+                                     k < 30 ? "AAAA" : "BCDE",
+                                     k < 20 ? plug : "(AB)");
+            assertEquals("message " + k, expected.convert(msg),
+                         m.convert(msg));
+            for (int slot = 1; slot < 5; slot++) {
+                assertEquals(expected.rotor(slot).setting(),
+                             m.rotor(slot).setting());
+            }
+        }
+    }
+
+    @Test
+    public void checkMappingCache() {
+        MappingCache cache = new MappingCache(3, 2);
+        int[] first = cache.row(10);
+        assertArrayEquals(new int[] { -1, -1, -1 }, first);
+        first[1] = 2;
+        int[] second = cache.row(20);
+        assertNotSame(first, second);
+        assertNull(cache.follow());
+        cache.restart();
+        assertSame(first, cache.row(10));
+        assertSame(second, cache.follow());
+        assertEquals(20, cache.key());
+        assertSame(first, cache.row(10));
+        cache.row(30);
+        assertEquals(2, cache.count());
+        assertSame(first, cache.row(10));
+        assertEquals(2, first[1]);
+        assertArrayEquals(new int[] { -1, -1, -1 }, cache.row(20));
+        assertEquals(1, cache.misses());
+        cache.restart();
+        assertSame(first, cache.row(10));
+        assertNotNull(cache.follow());
+        assertEquals(20, cache.key());
+        assertEquals(0, cache.misses());
+        cache.row(30);
+        cache.restart();
+        cache.row(10);
+        assertNull(cache.follow());
+    }
+
+    @Test
+    public void checkBulkConvert() {
+        String plug = "(HQ) (EX) (IP) (TR) (BY)";
+        Machine m = setUp(navalMachine(), ROTORS, "AXLE", "AAAA", plug);
+        char[] buf = "  FROM HIS SHOULDER HIAWATHA".toCharArray();
+        int n = m.convert(buf, 2, buf.length - 2, buf);
+        assertEquals("QVPQSOKOILPUBKJZPISFXDW", new String(buf, 0, n));
+
+        setUp(m, ROTORS, "AXLE", "AAAA", plug);
+        CharBuffer in = CharBuffer.wrap("FROM HIS SHOULDER HIAWATHA");
+        CharBuffer out = CharBuffer.allocate(10);
+        m.convert(in, out);
+        assertFalse(out.hasRemaining());
+        out.flip();
+        assertEquals("QVPQSOKOIL", out.toString());
+        out = CharBuffer.allocate(100);
+        m.convert(in, out);
+        out.flip();
+        assertEquals("PUBKJZPISFXDW", out.toString());
+
+        setUp(m, ROTORS, "AXLE", "AAAA", plug);
+        in = CharBuffer.wrap("FROM HIS SHOULDER HIAWATHA".toCharArray());
+        out = CharBuffer.allocate(10);
+        m.convert(in, out);
+        assertFalse(out.hasRemaining());
+        assertEquals('U', in.get(in.position()));
+        out.flip();
+        assertEquals("QVPQSOKOIL", out.toString());
+        out = CharBuffer.allocate(100);
+        m.convert(in, out);
+        assertFalse(in.hasRemaining());
+        out.flip();
+        assertEquals("PUBKJZPISFXDW", out.toString());
+    }
+
+    @Test
+    public void checkCopy() {
+        Machine m = setUp(navalMachine(), ROTORS, "AXLE", "AAAA",
+                          "(HQ) (EX) (IP) (TR) (BY)");
+        Machine c = m.copy();
+        assertEquals("QVPQSOKOILPUBKJZPISFXDW",
+                     c.convert("FROM HIS SHOULDER HIAWATHA"));
+        assertEquals("QVPQSOKOILPUBKJZPISFXDW",
+                     m.convert("FROM HIS SHOULDER HIAWATHA"));
+        setUp(c, ROTORS, "AAAA", "BBBB", "");
+        assertEquals("FROMHISSHOULDERHIAWATHA",
+                     setUp(m, ROTORS, "AXLE", "AAAA",
+                           "(HQ) (EX) (IP) (TR) (BY)")
+                     .convert("QVPQS OKOIL PUBKJ ZPISF XDW"));
+    }
+
+    @Test
+    public void checkConvertParallel() {
+        String[] rotors = { "C", "Gamma", "VI", "II", "VIII" };
+        StringBuilder msg = new StringBuilder();
+        for (int k = 0; k < 300000; k++) {
+            msg.append(UPPER_STRING.charAt(k * 7 % 26));
+            if (k % 11 == 0) {
+                msg.append(' ');
+            }
+        }
+        Machine sequential = setUp(navalMachine(), rotors, "QDYL", "BCDE",
+                                   "(AB) (QX)");
+        Machine parallel = setUp(navalMachine(), rotors, "QDYL", "BCDE",
+                                 "(AB) (QX)");
+        char[] buf = msg.toString().toCharArray();
+        int n = parallel.convertParallel(buf, 0, buf.length, buf);
+        assertEquals(sequential.convert(msg.toString()), new String(buf, 0, n));
+        assertEquals(sequential.convert(UPPER_STRING),
+                     parallel.convert(UPPER_STRING));
+    }
+
+    @Test
+    public void checkConvertParallelManyPawls() {
+        String[] rotors = { "B", "I", "II", "III", "IV", "V", "VI" };
+        StringBuilder msg = new StringBuilder();
+        for (int k = 0; k < 200000; k++) {
+            msg.append(UPPER_STRING.charAt(k * 11 % 26));
+        }
+        Machine sequential =
+            setUp(new Machine(UPPER, 7, 6, navalMachine().allRotors()),
+                  rotors, "QDYLAZ", "BCDEFG", "(AB) (QX)");
+        Machine parallel =
+            setUp(new Machine(UPPER, 7, 6, navalMachine().allRotors()),
+                  rotors, "QDYLAZ", "BCDEFG", "(AB) (QX)");
+        char[] buf = msg.toString().toCharArray();
+        int n = parallel.convertParallel(buf, 0, buf.length, buf);
+        assertEquals(sequential.convert(msg.toString()), new String(buf, 0, n));
+        assertEquals(sequential.convert(UPPER_STRING),
+                     parallel.convert(UPPER_STRING));
+    }
+
+    @Test
+    public void checkConvertParallelError() {
+        String[] rotors = { "B", "Beta", "III", "IV", "I" };
+        StringBuilder msg = new StringBuilder();
+        for (int k = 0; k < 100000; k++) {
+            msg.append(UPPER_STRING.charAt(k * 5 % 26));
+        }
+        msg.setCharAt(70000, '1');
+        Machine sequential = setUp(navalMachine(), rotors, "AXLE", "AAAA",
+                                   "(HQ) (EX)");
+        Machine parallel = setUp(navalMachine(), rotors, "AXLE", "AAAA",
+                                 "(HQ) (EX)");
+        char[] buf = msg.toString().toCharArray();
+        try {
+            sequential.convert(msg.toString());
+            fail("sequential conversion accepted a bad character");
+        } catch (EnigmaException excp) {
+            /* Expected. */
+        }
+        try {
+            parallel.convertParallel(buf, 0, buf.length, buf);
+            fail("parallel conversion accepted a bad character");
+        } catch (EnigmaException excp) {
+            /* Expected. */
+        }
+        assertEquals(sequential.convert(UPPER_STRING),
+                     parallel.convert(UPPER_STRING));
+    }
+
+    @Test
+    public void checkSharedRotors() {
+        MachinePool pool = new MachinePool(navalMachine());
+        Machine a = pool.acquire();
+        Machine b = pool.acquire();
+        setUp(a, ROTORS, "AXLE", "AAAA", "(HQ) (EX) (IP) (TR) (BY)");
+        setUp(b, ROTORS, "AXLE", "AAAA", "(HQ) (EX) (IP) (TR) (BY)");
+        String msg = "QVPQSOKOILPUBKJZPISFXDW";
+        StringBuilder plain = new StringBuilder();
+        for (int i = 0; i < msg.length(); i++) {
+            b.setRotors("ZZZZ");
+            b.setRing("BCDE");
+            b.convert("HELLO");
+            plain.append(a.convert(msg.substring(i, i + 1)));
+        }
+        assertEquals("FROMHISSHOULDERHIAWATHA", plain.toString());
+        pool.release(b);
+        assertSame(b, pool.acquire());
+    }
+
+    @Test
+    public void checkCompile() {
+        String[] rotors = { "C", "Gamma", "VI", "II", "VIII" };
+        StringBuilder msg = new StringBuilder();
+        for (int k = 0; k < 20000; k++) {
+            msg.append(UPPER_STRING.charAt(k * 11 % 26));
+        }
+        Machine m = setUp(navalMachine(), rotors, "QDYL", "BCDE", "(AB) (QX)");
+        CompiledMachine c = m.compile();
+        assertEquals(m.convert(msg.toString()), c.convert(msg.toString()));
+        for (int k = 1; k < 5; k++) {
+            assertEquals(m.compile().setting(k), c.setting(k));
+        }
+        m = setUp(navalMachine(), ROTORS, "AXLE", "AAAA",
+                  "(HQ) (EX) (IP) (TR) (BY)");
+        assertEquals("QVPQSOKOILPUBKJZPISFXDW",
+                     m.compile().convert("FROM HIS SHOULDER HIAWATHA"));
+        assertEquals("QVPQSOKOILPUBKJZPISFXDW",
+                     m.convert("FROM HIS SHOULDER HIAWATHA"));
+    }
+
+    @Test
+    public void checkConvertEach() {
+        String[] rotors = { "C", "Gamma", "VI", "II", "VIII" };
+        String[] msgs = new String[100];
+        for (int k = 0; k < msgs.length; k++) {
+            StringBuilder msg = new StringBuilder();
+            for (int i = 0; i < k * 37 % 61; i++) {
+                msg.append(UPPER_STRING.charAt((i * k + 3) % 26));
+                if (i % 5 == 4) {
+                    msg.append(' ');
+                }
+            }
+            msgs[k] = msg.toString();
+        }
+        Machine m = setUp(navalMachine(), rotors, "QDYL", "BCDE", "(AB) (QX)");
+        String[] result = m.convertEach(msgs);
+        for (int k = 0; k < msgs.length; k++) {
+            m.setRotors("QDYL");
+            assertEquals(m.convert(msgs[k]), result[k]);
+        }
+        m.setRotors("QDYL");
+        assertArrayEquals(result, m.convertEach(msgs));
+        assertArrayEquals(result, m.convertEach(msgs));
+    }
+
+    /** Set up M as lane K of checkLanes, and return it. */
+    private static Machine setUpLane(Machine m, int k) {
+        String[] moving = { "I", "II", "III", "IV", "V", "VI", "VII", "VIII" };
+        String[] rotors = { k % 2 == 0 ? "B" : "C", "Beta", moving[k % 8],
+                            moving[(k + 3) % 8], moving[(k + 6) % 8] };
+        return setUp(m, rotors, UPPER_STRING.charAt(k % 26) + "DEV",
+                     "A" + UPPER_STRING.charAt(k * 7 % 26) + "QC",
+                     k % 3 == 0 ? "" : "(AB) (QX)");
+    }
+
+    @Test
+    public void checkLanes() {
+        Machine m = navalMachine();
+        LaneMachine lanes = new LaneMachine(m, 60);
+        String[] msgs = new String[lanes.lanes()];
+        char[][] bufs = new char[msgs.length][];
+        for (int k = 0; k < msgs.length; k++) {
+            StringBuilder msg = new StringBuilder();
+            for (int i = 0; i < k * 53 % 700; i++) {
+                msg.append(UPPER_STRING.charAt((i * k + 5) % 26));
+            }
+            msgs[k] = msg.toString();
+            bufs[k] = msgs[k].toCharArray();
+            lanes.load(k, setUpLane(m, k));
+        }
+        lanes.convert(bufs, bufs, bufs.length);
+        for (int k = 0; k < msgs.length; k++) {
+            setUpLane(m, k);
+            assertEquals(m.convert(msgs[k]), new String(bufs[k]));
+            for (int slot = 1; slot < 5; slot++) {
+                assertEquals(m.rotor(slot).setting(),
+                             lanes.setting(k, slot));
+            }
+        }
+    }
+
+    @Test
+    public void checkSkip() {
+        String[] rotors = { "C", "Gamma", "VI", "II", "VIII" };
+        Machine stepped = setUp(navalMachine(), rotors, "QDYL", "AAAA", "");
+        Machine skipped = navalMachine();
+        long done = 0;
+        for (long n : new long[] { 0, 27, 53, 677, 17577, 100000 }) {
+            for (; done < n; done++) {
+                stepped.machineAdvance();
+            }
+            setUp(skipped, rotors, "QDYL", "AAAA", "");
+            skipped.skip(n);
+            String probe = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+            assertEquals("after " + n, stepped.convert(probe),
+                         skipped.convert(probe));
+            done += probe.length();
+        }
+    }
+
+    @Test
+    public void checkLargeAlphabet() {
+        int n = Rotor.MAX_TABLE_SIZE + 44;
+        StringBuilder chars = new StringBuilder();
+        for (int k = 0; k < n; k++) {
+            chars.append((char) ('\u0100' + k));
+        }
+        Alphabet alpha = new Alphabet(chars.toString());
+        int[] reflect = new int[n];
+        int[] left = new int[n];
+        int[] right = new int[n];
+        for (int k = 0; k < n; k++) {
+            reflect[k] = k ^ 1;
+            left[k] = (7 * k + 3) % n;
+            right[k] = (11 * k + 5) % n;
+        }
+        ArrayList<Rotor> rotors = new ArrayList<>();
+        rotors.add(new Reflector("R", new Permutation(reflect, alpha)));
+        rotors.add(new MovingRotor("L", new Permutation(left, alpha),
+                                   chars.substring(0, 1)));
+        rotors.add(new MovingRotor("M", new Permutation(right, alpha),
+                                   chars.substring(5, 7)));
+        Machine m = new Machine(alpha, 3, 2, rotors);
+        m.insertRotors(new String[] { "R", "L", "M" });
+        m.setPlugboard(new Permutation("", alpha));
+        Rotor rotor = m.rotor(1);
+        assertNull(rotor.forwardTable());
+        for (int posn = 0; posn < n; posn += 37) {
+            rotor.set(posn);
+            for (int p = 0; p < n; p++) {
+                int c = rotor.convertForward(p);
+                assertEquals(Math.floorMod(left[(p + posn) % n] - posn, n), c);
+                assertEquals(p, rotor.convertBackward(c));
+            }
+        }
+        m.setRotors(chars.substring(n - 2, n));
+        String msg = chars.toString() + chars.toString();
+        String encoded = m.convert(msg);
+        for (int i = 0; i < msg.length(); i++) {
+            assertNotEquals(msg.charAt(i), encoded.charAt(i));
+        }
+        m.setRotors(chars.substring(n - 2, n));
+        assertEquals(msg, m.convert(encoded));
+        m.setRotors(chars.substring(n - 2, n));
+        assertArrayEquals(new String[] { encoded, encoded },
+                          m.convertEach(new String[] { msg, msg }));
+        try {
+            m.compile();
+            fail("alphabet of " + n + " characters compiled");
+        } catch (EnigmaException excp) {
+            assertTrue(excp.getMessage().contains("too large"));
+        }
+    }
+
+}
@@ -1,246 +1,439 @@
-package enigma;
-
-import java.io.File;
-import java.io.IOException;
-import java.io.PrintStream;
-
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.NoSuchElementException;
-import java.util.Scanner;
-
-import static enigma.EnigmaException.*;
-
-/** Enigma simulator.
- *  @author Yiwen Feng
- */
-public final class Main {
-
-    /** Process a sequence of encryptions and decryptions, as
-     *  specified by ARGS, where 1 <= ARGS.length <= 3.
-     *  ARGS[0] is the name of a configuration file.
-     *  ARGS[1] is optional; when present, it names an input file
-     *  containing messages.  Otherwise, input comes from the standard
-     *  input.  ARGS[2] is optional; when present, it names an output
-     *  file for processed messages.  Otherwise, output goes to the
-     *  standard output. Exits normally if there are no errors in the input;
-     *  otherwise with code 1. */
-    public static void main(String... args) {
-        try {
-            new Main(args).process();
-            return;
-        } catch (EnigmaException excp) {
-            System.err.printf("Error: %s%n", excp.getMessage());
-        }
-        System.exit(1);
-    }
-
-    /** Check ARGS and open the necessary files (see comment on main). */
-    Main(String[] args) {
-        if (args.length < 1 || args.length > 3) {
-            throw error("Only 1, 2, or 3 command-line arguments allowed");
-        }
-
-        _config = getInput(args[0]);
-
-        if (args.length > 1) {
-            _input = getInput(args[1]);
-        } else {
-            _input = new Scanner(System.in);
-        }
-
-        if (args.length > 2) {
-            _output = getOutput(args[2]);
-        } else {
-            _output = System.out;
-        }
-    }
-
-    /** Return a Scanner reading from the file named NAME. */
-    private Scanner getInput(String name) {
-        try {
-            return new Scanner(new File(name));
-        } catch (IOException excp) {
-            throw error("could not open %s", name);
-        }
-    }
-
-    /** Return a PrintStream writing to the file named NAME. */
-    private PrintStream getOutput(String name) {
-        try {
-            return new PrintStream(new File(name));
-        } catch (IOException excp) {
-            throw error("could not open %s", name);
-        }
-    }
-
-
-    /** comment.
-     * @return
-     * @param s  */
-    boolean isSetting(String s) {
-        if (nextValue(s) == '*') {
-            return true;
-        }
-        return false;
-    }
-
-    /** comment.
-     * @param m */
-    public void removefirst(String[] m) {
-        System.arraycopy(m, 1, m, 0, m.length - 1);
-    }
-
-    /** commit.
-     * @param mymachine fsd
-     * @param s dfs
-     * @param names */
-    public void set(Machine mymachine, String s, ArrayList<String> names) {
-        String[] msg = s.split("\\s+");
-        int msgpos = 0;
-        find: for (int i = 1; i <= mymachine.numRotors(); i++) {
-            for (Rotor r:_allRotors) {
-                if (msg[i].equals(r.name())) {
-                    if (!r.isUsed()) {
-                        if (i == 0) {
-                            if (!(msg[i].equals("B") || msg[i].equals("C"))) {
-                                throw error("First rotor is not a reflector.");
-                            }
-                        }
-                        names.add(msg[i]);
-                        r.setisUsed();
-                        continue find;
-                    } else {
-                        throw error("A rotor is repeated in the setting line.");
-                    }
-                }
-            }
-            throw error("The rotors is misnamed.");
-        }
-        String[] namearray = new String[names.size()];
-        for (int i = 0; i < names.size(); i++) {
-            namearray[i] = names.get(i);
-        }
-        mymachine.insertRotors(namearray);
-        msgpos += mymachine.numRotors() + 1;
-        mymachine.setRotors(msg[msgpos]);
-        msgpos++;
-        if (msgpos < msg.length) {
-            if (nextValue(msg[msgpos]) != '(') {
-                mymachine.setRing(msg[msgpos]);
-                msgpos++;
-            }
-        }
-        String plug = "";
-        for (int i = msgpos; i < msg.length; i++) {
-            plug += msg[i];
-        }
-        mymachine.setPlugboard(new Permutation(plug, _alphabet));
-    }
-    /** comment. */
-    private void process() {
-        Machine mymachine = readConfig();
-        String read = _input.nextLine();
-        ArrayList<String> names = new ArrayList<String>();
-        if (!isSetting(read)) {
-            throw error("The input might not start with a setting.");
-        }
-        while (true) {
-            if (isSetting(read)) {
-                mymachine.reset();
-                names.clear();
-                set(mymachine, read, names);
-            } else {
-                printMessageLine(mymachine.convert(read));
-            }
-            if (_input.hasNextLine()) {
-                read = _input.nextLine();
-            } else {
-                break;
-            }
-        }
-    }
-
-    /** comment.
-     * @return
-     * @param s */
-    public char nextValue(String s) {
-        for (int i = 0; i < s.length(); i++) {
-            if (s.charAt(i) != ' ') {
-                return s.charAt(i);
-            }
-        }
-        return 0;
-    }
-    /** Return an Enigma machine configured from the contents of configuration
-     *  file _config. */
-    private Machine readConfig() {
-        try {
-            _alphabet = new Alphabet(_config.nextLine());
-            int numRotors = _config.nextInt();
-            int palws = _config.nextInt();
-            while (_config.hasNext()) {
-                _allRotors.add(readRotor());
-            }
-            return new Machine(_alphabet, numRotors, palws, _allRotors);
-        } catch (NoSuchElementException excp) {
-            throw error("configuration file truncated");
-        }
-    }
-
-    /** Return a rotor, reading its description from _config. */
-    private Rotor readRotor() {
-        try {
-            String name = _config.next();
-            String message = _config.next();
-            String cycle = _config.nextLine();
-            while (_config.hasNext("[(].+")) {
-                cycle += _config.nextLine();
-            }
-            Permutation permu = new Permutation(cycle, _alphabet);
-            if (message.charAt(0) == 'M') {
-                String notch = message.substring(1);
-                return  new MovingRotor(name, permu, notch);
-            } else if (message.charAt(0) == 'N') {
-                return new FixedRotor(name, permu);
-            } else {
-                return new Reflector(name, permu);
-            }
-        } catch (NoSuchElementException excp) {
-            throw error("bad rotor description");
-        }
-    }
-
-    /** Set M according to the specification given on SETTINGS,
-     *  which must have the format specified in the assignment. */
-    private void setUp(Machine M, String settings) {
-        M.setRotors(settings);
-    }
-
-    /** Print MSG in groups of five (except that the last group may
-     *  have fewer letters). */
-    private void printMessageLine(String msg) {
-        for (int i = 0; i < msg.length(); i++) {
-            _output.print(msg.charAt(i));
-            if (i % 5 == 4 && i != msg.length() - 1) {
-                _output.print(" ");
-            }
-        }
-        _output.println();
-    }
-
-    /** Alphabet used in this machine. */
-    private Alphabet _alphabet;
-
-    /** Source of input messages. */
-    private Scanner _input;
-
-    /** Source of machine configuration. */
-    private Scanner _config;
-
-    /** File for encoded/decoded messages. */
-    private PrintStream _output;
-
-    /** comment. */
-    private Collection<Rotor> _allRotors = new ArrayList<>();
-}
+package enigma;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+import static enigma.EnigmaException.*;
+
+/** Enigma simulator.
+ *  @author Yiwen Feng
+ */
+public final class Main {
+
+    /** Process a sequence of encryptions and decryptions, as
+     *  specified by ARGS, where 1 <= ARGS.length <= 3.
+     *  ARGS[0] is the name of a configuration file.
+     *  ARGS[1] is optional; when present, it names an input file
+     *  containing messages.  Otherwise, input comes from the standard
+     *  input.  ARGS[2] is optional; when present, it names an output
+     *  file for processed messages.  Otherwise, output goes to the
+     *  standard output. Exits normally if there are no errors in the input;
+     *  otherwise with code 1.
+     *
+     *  ARGS may begin with options.  With --mmap, the input and output
+     *  files, which must both be given and be ASCII, are processed
+     *  through memory mappings, one byte per character.  With --parallel,
+     *  the messages following different setting lines are converted
+     *  concurrently, as are the pieces of long messages; it cannot be
+     *  combined with --mmap.  With --cache, the configuration is
+     *  loaded from a compiled copy kept next to it, which is rewritten
+     *  whenever the configuration changes; with --no-cache, the default,
+     *  it is neither read nor written.
+     *
+     *  With --server ADDRESS, the only argument is the configuration
+     *  file, and requests are served at ADDRESS until the process is
+     *  stopped; ADDRESS is a loopback port number or the path of a
+     *  Unix-domain socket.  With --client ADDRESS, there is no
+     *  configuration argument: ARGS[0] and ARGS[1], both optional, name
+     *  the input and output files, which are processed by the server at
+     *  ADDRESS exactly as this program would process them.
+     *
+     *  When the system property enigma.metrics is true, counters of the
+     *  work done are published over JMX and logged (see Metrics). */
+    public static void main(String... args) {
+        Metrics.start();
+        try {
+            run(args);
+            return;
+        } catch (EnigmaException excp) {
+            System.err.printf("Error: %s%n", excp.getMessage());
+        }
+        System.exit(1);
+    }
+
+    /** Process ARGS as main does, but report errors by throwing an
+     *  EnigmaException rather than by exiting. */
+    static void run(String... args) {
+        new Main(args).process();
+    }
+
+    /** Check ARGS and open the necessary files (see comment on main). */
+    Main(String[] args) {
+        int k;
+        for (k = 0; k < args.length && args[k].startsWith("--"); k++) {
+            if (args[k].equals("--mmap")) {
+                _mapped = true;
+            } else if (args[k].equals("--parallel")) {
+                _parallel = true;
+            } else if (args[k].equals("--cache")) {
+                _useCache = true;
+            } else if (args[k].equals("--no-cache")) {
+                _useCache = false;
+            } else if (args[k].equals("--server") && k + 1 < args.length) {
+                k++;
+                _serverAddress = args[k];
+            } else if (args[k].equals("--client") && k + 1 < args.length) {
+                k++;
+                _clientAddress = args[k];
+            } else {
+                throw error("unknown option %s", args[k]);
+            }
+        }
+        args = Arrays.copyOfRange(args, k, args.length);
+        if (_mapped && _parallel) {
+            throw error("--mmap and --parallel cannot be used together");
+        }
+        if (_clientAddress != null) {
+            if (args.length > 2) {
+                throw error("Only 0, 1, or 2 arguments allowed with --client");
+            }
+            _input = args.length > 0
+                ? getReader(args[0]) : new InputStreamReader(System.in);
+            _output = args.length > 1
+                ? getOutput(args[1]) : new OutputStreamWriter(System.out);
+            return;
+        } else if (_serverAddress != null && args.length != 1) {
+            throw error("--server requires exactly one argument");
+        }
+        if (args.length < 1 || args.length > 3) {
+            throw error("Only 1, 2, or 3 command-line arguments allowed");
+        }
+
+        _configName = args[0];
+        _configText = readAll(args[0]);
+
+        if (_mapped) {
+            if (args.length != 3) {
+                throw error("--mmap requires input and output files");
+            }
+            _inputName = args[1];
+            _outputName = args[2];
+            return;
+        }
+
+        if (args.length > 1) {
+            _input = getReader(args[1]);
+        } else {
+            _input = new InputStreamReader(System.in);
+        }
+
+        if (args.length > 2) {
+            _output = getOutput(args[2]);
+        } else {
+            _output = new OutputStreamWriter(System.out);
+        }
+    }
+
+    /** Return the contents of the file named NAME. */
+    private byte[] readAll(String name) {
+        try {
+            return Files.readAllBytes(Paths.get(name));
+        } catch (IOException excp) {
+            throw error("could not open %s", name);
+        }
+    }
+
+    /** Return a Reader reading from the file named NAME. */
+    private Reader getReader(String name) {
+        try {
+            return new InputStreamReader(new FileInputStream(name));
+        } catch (IOException excp) {
+            throw error("could not open %s", name);
+        }
+    }
+
+    /** Return a Writer writing to the file named NAME. */
+    private Writer getOutput(String name) {
+        try {
+            return new OutputStreamWriter(new FileOutputStream(name));
+        } catch (IOException excp) {
+            throw error("could not open %s", name);
+        }
+    }
+
+    /** comment.
+     * @param m */
+    public void removefirst(String[] m) {
+        System.arraycopy(m, 1, m, 0, m.length - 1);
+    }
+
+    /** commit.
+     * @param mymachine fsd
+     * @param s dfs
+     * @param names */
+    public void set(Machine mymachine, String s, ArrayList<String> names) {
+        String[] msg = s.split("\\s+");
+        int msgpos = 0;
+        find: for (int i = 1; i <= mymachine.numRotors(); i++) {
+            for (Rotor r:_allRotors) {
+                if (msg[i].equals(r.name())) {
+                    if (!names.contains(msg[i])) {
+                        if (i == 0) {
+                            if (!(msg[i].equals("B") || msg[i].equals("C"))) {
+                                throw error("First rotor is not a reflector.");
+                            }
+                        }
+                        names.add(msg[i]);
+                        continue find;
+                    } else {
+                        throw error("A rotor is repeated in the setting line.");
+                    }
+                }
+            }
+            throw error("The rotors is misnamed.");
+        }
+        String[] namearray = new String[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            namearray[i] = names.get(i);
+        }
+        mymachine.insertRotors(namearray);
+        msgpos += mymachine.numRotors() + 1;
+        mymachine.setRotors(msg[msgpos]);
+        msgpos++;
+        if (msgpos < msg.length) {
+            if (nextValue(msg[msgpos]) != '(') {
+                mymachine.setRing(msg[msgpos]);
+                msgpos++;
+            }
+        }
+        String plug = "";
+        for (int i = msgpos; i < msg.length; i++) {
+            plug += msg[i];
+        }
+        mymachine.setPlugboard(new Permutation(plug, _alphabet));
+    }
+    /** Read the input in chunks, converting each message with the
+     *  settings on the most recent setting line. */
+    private void process() {
+        if (_clientAddress != null) {
+            new Client(_clientAddress, _input, _output).run();
+            return;
+        } else if (_serverAddress != null) {
+            server().serve(_serverAddress);
+            return;
+        } else if (_mapped) {
+            processMapped();
+            return;
+        } else if (_parallel) {
+            processParallel();
+            return;
+        }
+        Machine mymachine = readConfig();
+        Transcriber transcriber = new Transcriber(this, mymachine, _output);
+        char[] buf = new char[Transcriber.CHUNK];
+        try {
+            for (int n = _input.read(buf); n >= 0; n = _input.read(buf)) {
+                transcriber.feed(buf, 0, n);
+            }
+            transcriber.finish();
+        } catch (IOException excp) {
+            throw error("could not read input");
+        } finally {
+            transcriber.flush();
+        }
+    }
+
+    /** Return a server for requests on my configuration. */
+    Server server() {
+        return new Server(this, new MachinePool(readConfig()));
+    }
+
+    /** Process the input file through a memory mapping, writing the
+     *  output file through another. */
+    private void processMapped() {
+        Machine mymachine = readConfig();
+        for (int i = 0; i < _alphabet.size(); i++) {
+            if (_alphabet.toChar(i) > 0x7f) {
+                throw error("--mmap requires an ASCII alphabet");
+            }
+        }
+        try (FileChannel in = FileChannel.open(Paths.get(_inputName),
+                                               StandardOpenOption.READ);
+             FileChannel out =
+                 FileChannel.open(Paths.get(_outputName),
+                                  StandardOpenOption.CREATE,
+                                  StandardOpenOption.READ,
+                                  StandardOpenOption.WRITE,
+                                  StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedTranscriber transcriber =
+                new MappedTranscriber(this, mymachine, out);
+            try {
+                transcriber.feed(in);
+                transcriber.finish();
+            } finally {
+                transcriber.flush();
+                out.truncate(transcriber.length());
+            }
+        } catch (IOException excp) {
+            throw error("could not map %s or %s", _inputName, _outputName);
+        }
+    }
+
+    /** Read the input in chunks, converting batches of whole setting
+     *  blocks, each starting with a setting line, concurrently on
+     *  separate copies of the machine and writing the results in
+     *  order. */
+    private void processParallel() {
+        BatchTranscriber transcriber =
+            new BatchTranscriber(this, new MachinePool(readConfig()),
+                                 _output,
+                                 Runtime.getRuntime().availableProcessors());
+        char[] buf = new char[Transcriber.CHUNK];
+        try {
+            for (int n = _input.read(buf); n >= 0; n = _input.read(buf)) {
+                transcriber.feed(buf, 0, n);
+            }
+            transcriber.finish();
+        } catch (IOException excp) {
+            throw error("could not read input");
+        } finally {
+            transcriber.close();
+        }
+    }
+
+    /** comment.
+     * @return
+     * @param s */
+    public char nextValue(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) != ' ') {
+                return s.charAt(i);
+            }
+        }
+        return 0;
+    }
+    /** Return an Enigma machine configured from the contents of configuration
+     *  file _config. */
+    private Machine readConfig() {
+        long time = Metrics.ENABLED ? System.nanoTime() : 0;
+        try {
+            return parseConfig();
+        } finally {
+            if (Metrics.ENABLED) {
+                Metrics.PARSE_NANOS.add(System.nanoTime() - time);
+            }
+        }
+    }
+
+    /** Return an Enigma machine configured from the compiled form of
+     *  _config if usable, or else from its text. */
+    private Machine parseConfig() {
+        long checksum = ConfigCache.checksum(_configText);
+        Path compiled = Paths.get(_configName + ConfigCache.SUFFIX);
+        if (_useCache) {
+            Machine result = ConfigCache.load(compiled, checksum);
+            if (result != null) {
+                _alphabet = result.alphabet();
+                _allRotors = result.allRotors();
+                return result;
+            }
+        }
+        _config = new Scanner(new ByteArrayInputStream(_configText));
+        try {
+            _alphabet = new Alphabet(_config.nextLine());
+            int numRotors = _config.nextInt();
+            int palws = _config.nextInt();
+            while (_config.hasNext()) {
+                _allRotors.add(readRotor());
+            }
+            Machine result =
+                new Machine(_alphabet, numRotors, palws, _allRotors);
+            if (_useCache) {
+                ConfigCache.store(compiled, checksum, result);
+            }
+            return result;
+        } catch (NoSuchElementException excp) {
+            throw error("configuration file truncated");
+        }
+    }
+
+    /** Return a rotor, reading its description from _config. */
+    private Rotor readRotor() {
+        try {
+            String name = _config.next();
+            String message = _config.next();
+            String cycle = _config.nextLine();
+            while (_config.hasNext("[(].+")) {
+                cycle += _config.nextLine();
+            }
+            Permutation permu = new Permutation(cycle, _alphabet);
+            if (message.charAt(0) == 'M') {
+                String notch = message.substring(1);
+                return  new MovingRotor(name, permu, notch);
+            } else if (message.charAt(0) == 'N') {
+                return new FixedRotor(name, permu);
+            } else {
+                return new Reflector(name, permu);
+            }
+        } catch (NoSuchElementException excp) {
+            throw error("bad rotor description");
+        }
+    }
+
+    /** Set M according to the specification given on SETTINGS,
+     *  which must have the format specified in the assignment. */
+    void setUp(Machine M, String settings) {
+        M.reset();
+        set(M, settings, new ArrayList<String>());
+    }
+
+    /** Alphabet used in this machine. */
+    private Alphabet _alphabet;
+
+    /** Source of input messages. */
+    private Reader _input;
+
+    /** Source of machine configuration. */
+    private Scanner _config;
+
+    /** Name of the configuration file. */
+    private String _configName;
+
+    /** Contents of the configuration file. */
+    private byte[] _configText;
+
+    /** True iff the configuration may be loaded from and saved to its
+     *  compiled form. */
+    private boolean _useCache;
+
+    /** File for encoded/decoded messages. */
+    private Writer _output;
+
+    /** Address at which to serve requests, or null. */
+    private String _serverAddress;
+
+    /** Address of the server to send input to, or null. */
+    private String _clientAddress;
+
+    /** True iff setting blocks are to be converted concurrently. */
+    private boolean _parallel;
+
+    /** True iff the input and output files are to be memory-mapped. */
+    private boolean _mapped;
+
+    /** Name of the input file when memory-mapped. */
+    private String _inputName;
+
+    /** Name of the output file when memory-mapped. */
+    private String _outputName;
+
+    /** comment. */
+    private Collection<Rotor> _allRotors = new ArrayList<>();
+}
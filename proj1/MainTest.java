@@ -0,0 +1,177 @@
+package enigma;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/** The suite of all JUnit tests for the modes of the Main class.
+ *  @author Yiwen Feng
+ */
+public class MainTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(20);
+
+    /** Directory holding the files of each test. */
+    @Rule
+    public TemporaryFolder dir = new TemporaryFolder();
+
+    /* ***** TESTING UTILITIES ***** */
+
+    /** The naval configuration. */
+    static final String CONFIG = String.join("\n",
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZ",
+        "5 3",
+        "I MQ      (AELTPHQXRU) (BKNW) (CMOY) (DFG) (IV) (JZ) (S)",
+        "II ME     (FIXVYOMW) (CDKLHUP) (ESZ) (BJ) (GR) (NT) (A) (Q)",
+        "III MV    (ABDHPEJT) (CFLVMZOYQIRWUKXSG) (N)",
+        "IV MJ     (AEPLIYWCOXMRFZBSTGJQNH) (DV) (KU)",
+        "V MZ      (AVOLDRWFIUQ)(BZKSMNHYC) (EGTJPX)",
+        "VI MZM    (AJQDVLEOZWIYTS) (CGMNHFUX) (BPRK)",
+        "VII MZM   (ANOUPFRIMBZTLWKSVEGCJYDHXQ)",
+        "VIII MZM  (AFLSETWUNDHOZVICQ) (BKJ) (GXY) (MPR)",
+        "Beta NA   (ALBEVFCYODJWUGNMQTZSKPR) (HIX)",
+        "Gamma NA  (AFNIRLBSQWVXGUZDKMTPCOYJHE)",
+        "B R       (AE) (BN) (CK) (DQ) (FU) (GY) (HW) (IJ) (LO) (MP)",
+        "          (RX) (SZ) (TV)",
+        "C R       (AR) (BD) (CO) (EJ) (FN) (GT) (HK) (IV) (LM) (PW)",
+        "          (QZ) (SX) (UY)",
+        "");
+
+    /** A short input. */
+    static final String INPUT = String.join("\n",
+        "* B Beta III IV I AXLE (HQ) (EX) (IP) (TR) (BY)",
+        "FROM HIS SHOULDER HIAWATHA",
+        "TOOK THE CAMERA OF ROSEWOOD",
+        "",
+        "* B Beta I II III AAAA",
+        "HELLO WORLD",
+        "");
+
+    /** The output for INPUT, with lines ended by NL. */
+    static String output(String nl) {
+        return "QVPQS OKOIL PUBKJ ZPISF XDW" + nl
+            + "BHCNS CXNUO AATZX SRCFY DGU" + nl
+            + nl
+            + "ILBDA AMTAZ" + nl;
+    }
+
+    /** Return an input of several setting blocks, some with message lines
+     *  longer than the conversion buffers, with lines ended by NL. */
+    static String bigInput(String nl) {
+        StringBuilder result = new StringBuilder();
+        String[] settings = {
+            "* B Beta III IV I AXLE (HQ) (EX) (IP) (TR) (BY)",
+            "* C Gamma VIII VII VI ZZZZ BCDE (AB) (CD)",
+            "* B Beta I II III QEVX",
+        };
+        for (int b = 0; b < 30; b++) {
+            result.append(settings[b % settings.length]).append(nl);
+            for (int line = 0; line < 3; line++) {
+                int len = b % 7 == 3 && line == 1 ? 100000 * (b % 3 + 1)
+                    : 97 * line + b;
+                for (int k = 0; k < len; k++) {
+                    result.append((char) ('A' + (k * 7 + b) % 26));
+                    if (k % 13 == 12) {
+                        result.append(' ');
+                    }
+                }
+                result.append(nl);
+            }
+        }
+        return result.toString();
+    }
+
+    /** Return a new file in the test directory named NAME holding
+     *  TEXT. */
+    File file(String name, String text) throws IOException {
+        File result = new File(dir.getRoot(), name);
+        Files.write(result.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        return result;
+    }
+
+    /** Return the contents of FILE. */
+    static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()),
+                          StandardCharsets.UTF_8);
+    }
+
+    /** Return the output of Main run with OPTIONS on a configuration file
+     *  holding CONFIG and an input file holding INPUT. */
+    String run(String input, String... options) throws IOException {
+        File config = file("naval.conf", CONFIG);
+        File in = file("input", input);
+        File out = new File(dir.getRoot(), "output");
+        String[] args = new String[options.length + 3];
+        System.arraycopy(options, 0, args, 0, options.length);
+        args[options.length] = config.getPath();
+        args[options.length + 1] = in.getPath();
+        args[options.length + 2] = out.getPath();
+        Main.run(args);
+        return read(out);
+    }
+
+    /* ***** TESTS ***** */
+
+    @Test
+    public void checkStreaming() throws IOException {
+        assertEquals(output(Transcriber.NEWLINE), run(INPUT, "--no-cache"));
+    }
+
+    @Test
+    public void checkCache() throws IOException {
+        File compiled = new File(dir.getRoot(),
+                                 "naval.conf" + ConfigCache.SUFFIX);
+        assertEquals(output(Transcriber.NEWLINE), run(INPUT));
+        assertFalse(compiled.exists());
+        assertEquals(output(Transcriber.NEWLINE), run(INPUT, "--cache"));
+        assertTrue(compiled.exists());
+        assertEquals(output(Transcriber.NEWLINE), run(INPUT, "--cache"));
+    }
+
+    @Test
+    public void checkMapped() throws IOException {
+        assertEquals(output(Transcriber.NEWLINE),
+                     run(INPUT, "--no-cache", "--mmap"));
+        for (String nl : new String[] { "\n", "\r\n", "\r" }) {
+            String input = bigInput(nl);
+            assertEquals(run(input, "--no-cache"),
+                         run(input, "--no-cache", "--mmap"));
+        }
+    }
+
+    @Test
+    public void checkParallel() throws IOException {
+        assertEquals(output(Transcriber.NEWLINE),
+                     run(INPUT, "--no-cache", "--parallel"));
+        for (String nl : new String[] { "\n", "\r\n", "\r" }) {
+            String input = bigInput(nl);
+            assertEquals(run(input, "--no-cache"),
+                         run(input, "--no-cache", "--parallel"));
+        }
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void checkParallelStart() throws IOException {
+        run("  " + Transcriber.NEWLINE + "AAAA", "--no-cache", "--parallel");
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void checkMappedNotParallel() throws IOException {
+        run(INPUT, "--no-cache", "--mmap", "--parallel");
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void checkMappedAscii() throws IOException {
+        run(INPUT.replace("AAAA", "AAAA \u00e9"), "--no-cache", "--mmap");
+    }
+
+}
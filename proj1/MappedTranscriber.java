@@ -0,0 +1,134 @@
+package enigma;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static enigma.EnigmaException.*;
+
+/** A Transcriber that reads its input from, and writes its output to,
+ *  memory-mapped files, one byte per character.  Both files are mapped
+ *  a window at a time, so files of any size may be processed with a heap
+ *  footprint that does not depend on their size.  Message characters are
+ *  converted straight from the input window into the output window.
+ *  Both files must be ASCII, which every platform charset used by the
+ *  streaming mode reads and writes one byte per character.
+ *  @author Yiwen Feng
+ */
+class MappedTranscriber extends Transcriber {
+
+    /** Size of the mapped windows of the input and output files. */
+    static final long WINDOW = 1L << 26;
+
+    /** A MappedTranscriber that sets up MACHINE through MAIN on each
+     *  setting line and writes converted messages to OUTPUT, which must
+     *  be open for reading and writing. */
+    MappedTranscriber(Main main, Machine machine, FileChannel output) {
+        super(main, machine, null);
+        _machine = machine;
+        _channel = output;
+    }
+
+    /** Process the whole of INPUT. */
+    void feed(FileChannel input) throws IOException {
+        long size = input.size();
+        for (long start = 0; start < size; start += WINDOW) {
+            MappedByteBuffer window =
+                input.map(FileChannel.MapMode.READ_ONLY, start,
+                          Math.min(WINDOW, size - start));
+            int end = window.limit();
+            int i = 0;
+            while (i < end) {
+                int c = window.get(i) & 0xff;
+                if (inMessage() && c != '\n' && c != '\r') {
+                    int j = i;
+                    while (j < end && j - i < CHUNK) {
+                        c = window.get(j);
+                        if (c == '\n' || c == '\r') {
+                            break;
+                        }
+                        j++;
+                    }
+                    reserve(j - i + (j - i) / 5 + 1);
+                    setGroup(_machine.transcribe(window, i, j, _window,
+                                                 group()));
+                    i = j;
+                } else {
+                    if (c > 0x7f) {
+                        throw error("--mmap input must be ASCII");
+                    }
+                    if (accept((char) c)) {
+                        i++;
+                    }
+                }
+            }
+        }
+    }
+
+    /** Return the number of bytes written so far. */
+    long length() {
+        return _windowStart + (_window == null ? 0 : _window.position());
+    }
+
+    @Override
+    void writeNewline() {
+        reserve(NEWLINE.length());
+        for (int k = 0; k < NEWLINE.length(); k++) {
+            _window.put((byte) NEWLINE.charAt(k));
+        }
+    }
+
+    @Override
+    void write(char[] buf, int len) throws IOException {
+        if (len == 0) {
+            return;
+        }
+        reserve(len);
+        for (int k = 0; k < len; k++) {
+            if (buf[k] > 0x7f) {
+                throw error("character '%c' cannot be written as ASCII",
+                            buf[k]);
+            }
+            _window.put((byte) buf[k]);
+        }
+    }
+
+    @Override
+    void flush() {
+        super.flush();
+        if (_window != null) {
+            _window.force();
+        }
+    }
+
+    /** Make sure the current output window has room for at least LEN
+     *  more bytes, forcing the current window to the file and mapping a
+     *  new one starting at the next byte to be written if it has not. */
+    private void reserve(int len) {
+        if (_window != null && _window.remaining() >= len) {
+            return;
+        }
+        try {
+            long start = length();
+            if (_window != null) {
+                _window.force();
+            }
+            _window = _channel.map(FileChannel.MapMode.READ_WRITE, start,
+                                   Math.max(WINDOW, len));
+            _windowStart = start;
+        } catch (IOException excp) {
+            throw error("could not map output");
+        }
+    }
+
+    /** Machine used for conversion. */
+    private final Machine _machine;
+    /** Destination of converted messages. */
+    private final FileChannel _channel;
+    /** Currently mapped window of the output, positioned at the next byte
+     *  to be written. */
+    private MappedByteBuffer _window;
+    /** Position in the output file of the start of _window. */
+    private long _windowStart;
+
+}
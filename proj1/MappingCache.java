@@ -0,0 +1,210 @@
+package enigma;
+
+import java.util.Arrays;
+
+/** A bounded cache of the mappings a machine performs in particular rotor
+ *  states, each identified by a key that packs the settings of all the
+ *  rotors.  When full, the mapping used least recently is evicted.  The
+ *  entries of a mapping are filled in lazily by the caller: a mapping
+ *  starts out with -1 for every input index.  Each mapping also records
+ *  the one asked for after it, which is that of the next rotor state, so
+ *  that a run of characters converted again from a rotor state seen
+ *  before can follow those links instead of stepping the rotors and
+ *  looking up each state.
+ *  @author Yiwen Feng
+ */
+final class MappingCache {
+
+    /** A cache of at most CAPACITY mappings of SIZE indices each. */
+    MappingCache(int size, int capacity) {
+        _size = size;
+        _keys = new long[capacity];
+        _rows = new int[capacity][];
+        _chain = new int[capacity];
+        _next = new int[capacity];
+        _nextKey = new long[capacity];
+        _newer = new int[capacity];
+        _older = new int[capacity];
+        _buckets = new int[Integer.highestOneBit(capacity) * 4];
+        clear();
+    }
+
+    /** Return the number of mappings I can hold. */
+    int capacity() {
+        return _keys.length;
+    }
+
+    /** Return the number of mappings I hold. */
+    int count() {
+        return _count;
+    }
+
+    /** Return the mapping for the rotor state KEY, which follows the
+     *  state last asked for unless restart() has been called since, and
+     *  make it the most recently used.  If I hold none, returns a new
+     *  mapping filled with -1, after evicting the least recently used if
+     *  I am full.  The result is mine: entries the caller stores into it
+     *  are kept. */
+    int[] row(long key) {
+        int e = _current >= 0 ? _next[_current] : -1;
+        if (e < 0 || _keys[e] != key) {
+            e = find(key);
+            if (_current >= 0) {
+                _next[_current] = e;
+                _nextKey[_current] = key;
+            }
+        }
+        if (e != _newest) {
+            unlink(e);
+            push(e);
+        }
+        _current = e;
+        return _rows[e];
+    }
+
+    /** Return the mapping asked for after the last one the previous time
+     *  that one was asked for, if it is still held, making it the most
+     *  recently used, as row would given its key.  Returns null if there
+     *  is no such mapping, or restart() was called after the last. */
+    int[] follow() {
+        if (_current < 0) {
+            return null;
+        }
+        int e = _next[_current];
+        if (e < 0 || _keys[e] != _nextKey[_current]) {
+            return null;
+        }
+        if (e != _newest) {
+            unlink(e);
+            push(e);
+        }
+        _current = e;
+        _misses = 0;
+        return _rows[e];
+    }
+
+    /** Return the key of the mapping last returned by row or follow. */
+    long key() {
+        return _keys[_current];
+    }
+
+    /** Return the number of mappings made since one was last found among
+     *  those held, by row or follow. */
+    int misses() {
+        return _misses;
+    }
+
+    /** Note that the next state asked for does not follow the last. */
+    void restart() {
+        _current = -1;
+    }
+
+    /** Return the entry for the rotor state KEY, making a new one, which
+     *  is the newest, if there is none. */
+    private int find(long key) {
+        int bucket = bucket(key);
+        for (int e = _buckets[bucket]; e >= 0; e = _chain[e]) {
+            if (_keys[e] == key) {
+                _misses = 0;
+                return e;
+            }
+        }
+        _misses++;
+        int e;
+        if (_count < _keys.length) {
+            e = _count;
+            _count++;
+            _rows[e] = new int[_size];
+        } else {
+            e = _oldest;
+            unlink(e);
+            int old = bucket(_keys[e]);
+            if (_buckets[old] == e) {
+                _buckets[old] = _chain[e];
+            } else {
+                int prev = _buckets[old];
+                while (_chain[prev] != e) {
+                    prev = _chain[prev];
+                }
+                _chain[prev] = _chain[e];
+            }
+        }
+        Arrays.fill(_rows[e], -1);
+        _keys[e] = key;
+        _next[e] = -1;
+        _chain[e] = _buckets[bucket];
+        _buckets[bucket] = e;
+        push(e);
+        return e;
+    }
+
+    /** Forget all my mappings. */
+    void clear() {
+        Arrays.fill(_buckets, -1);
+        _count = _misses = 0;
+        _newest = _oldest = _current = -1;
+    }
+
+    /** Return the bucket of the key KEY. */
+    private int bucket(long key) {
+        long h = key * 0x9e3779b97f4a7c15L;
+        return (int) (h >>> 32) & (_buckets.length - 1);
+    }
+
+    /** Remove entry E from the recency order. */
+    private void unlink(int e) {
+        if (_newer[e] >= 0) {
+            _older[_newer[e]] = _older[e];
+        } else {
+            _newest = _older[e];
+        }
+        if (_older[e] >= 0) {
+            _newer[_older[e]] = _newer[e];
+        } else {
+            _oldest = _newer[e];
+        }
+    }
+
+    /** Make entry E, which is not in the recency order, the newest. */
+    private void push(int e) {
+        _newer[e] = -1;
+        _older[e] = _newest;
+        if (_newest >= 0) {
+            _newer[_newest] = e;
+        } else {
+            _oldest = e;
+        }
+        _newest = e;
+    }
+
+    /** Number of indices in each mapping. */
+    private final int _size;
+    /** The key of each entry. */
+    private final long[] _keys;
+    /** The mapping of each entry. */
+    private final int[][] _rows;
+    /** The next entry in the same bucket as each entry, or -1. */
+    private final int[] _chain;
+    /** The entry asked for after each entry, or -1.  It may have been
+     *  evicted and reused since. */
+    private final int[] _next;
+    /** The key of the entry asked for after each entry when it was. */
+    private final long[] _nextKey;
+    /** The entry used next after each entry, or -1 for the newest. */
+    private final int[] _newer;
+    /** The entry used last before each entry, or -1 for the oldest. */
+    private final int[] _older;
+    /** The first entry of each bucket, or -1. */
+    private final int[] _buckets;
+    /** Number of entries in use, which are entries 0 .. _count-1. */
+    private int _count;
+    /** The most recently used entry, or -1 if none. */
+    private int _newest;
+    /** The least recently used entry, or -1 if none. */
+    private int _oldest;
+    /** Number of entries made since an entry was last found. */
+    private int _misses;
+    /** The entry last asked for, or -1 after restart(). */
+    private int _current;
+
+}
@@ -0,0 +1,156 @@
+package enigma;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/** Opt-in counters of the work done by Main and Machine.  They are kept
+ *  only when the system property enigma.metrics is true; since ENABLED
+ *  is a constant, the guarded updates cost nothing otherwise.  Once
+ *  started, the counters are published as the MBean enigma:type=Metrics
+ *  and summarized on the standard error every enigma.metrics.interval
+ *  seconds (10 by default) and at exit.
+ *  @author Yiwen Feng
+ */
+final class Metrics implements MetricsMBean {
+
+    /** True iff metrics are kept.  Every update must be guarded by it. */
+    static final boolean ENABLED = Boolean.getBoolean("enigma.metrics");
+
+    /** Characters converted. */
+    static final LongAdder CHARACTERS = new LongAdder();
+    /** Message lines converted. */
+    static final LongAdder MESSAGES = new LongAdder();
+    /** Setting lines processed. */
+    static final LongAdder BLOCKS = new LongAdder();
+    /** Single-position rotor steps. */
+    static final LongAdder STEPS = new LongAdder();
+    /** Steps of rotors moved by their own notch. */
+    static final LongAdder DOUBLE_STEPS = new LongAdder();
+    /** Nanoseconds spent reading configurations. */
+    static final LongAdder PARSE_NANOS = new LongAdder();
+    /** Nanoseconds spent converting messages. */
+    static final LongAdder CONVERT_NANOS = new LongAdder();
+    /** Nanoseconds spent writing output. */
+    static final LongAdder WRITE_NANOS = new LongAdder();
+
+    /** If ENABLED, register the MBean and start the periodic summary.
+     *  Does nothing if already started. */
+    static synchronized void start() {
+        if (!ENABLED || _instance != null) {
+            return;
+        }
+        _instance = new Metrics();
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                .registerMBean(_instance, new ObjectName(NAME));
+        } catch (JMException excp) {
+            System.err.printf("enigma metrics: could not register %s%n",
+                              NAME);
+        }
+        long interval = Long.getLong("enigma.metrics.interval", 10);
+        ScheduledExecutorService timer =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "enigma-metrics");
+                t.setDaemon(true);
+                return t;
+            });
+        timer.scheduleAtFixedRate(() -> System.err.println(_instance.report()),
+                                  interval, interval, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(
+            new Thread(() -> System.err.println(_instance.report())));
+    }
+
+    /** A Metrics whose first rate interval begins now. */
+    private Metrics() {
+        _lastTime = System.nanoTime();
+    }
+
+    /** Return a one-line summary of all counters, including the rate of
+     *  conversion since the last summary, and start a new interval. */
+    synchronized String report() {
+        long now = System.nanoTime();
+        long chars = CHARACTERS.sum();
+        _rate = (chars - _lastCharacters) * 1e9
+            / Math.max(1, now - _lastTime);
+        _lastTime = now;
+        _lastCharacters = chars;
+        return String.format("enigma metrics: chars=%d chars/s=%.0f "
+                             + "messages=%d blocks=%d messages/block=%.2f "
+                             + "steps=%d double-steps=%d parse-ms=%.1f "
+                             + "convert-ms=%.1f write-ms=%.1f",
+                             chars, _rate, getMessages(), getSettingBlocks(),
+                             getMessagesPerBlock(), getRotorSteps(),
+                             getDoubleSteps(), getParseMillis(),
+                             getConvertMillis(), getWriteMillis());
+    }
+
+    @Override
+    public long getCharacters() {
+        return CHARACTERS.sum();
+    }
+
+    @Override
+    public synchronized double getCharactersPerSecond() {
+        return _rate;
+    }
+
+    @Override
+    public long getMessages() {
+        return MESSAGES.sum();
+    }
+
+    @Override
+    public long getSettingBlocks() {
+        return BLOCKS.sum();
+    }
+
+    @Override
+    public double getMessagesPerBlock() {
+        return (double) MESSAGES.sum() / Math.max(1, BLOCKS.sum());
+    }
+
+    @Override
+    public long getRotorSteps() {
+        return STEPS.sum();
+    }
+
+    @Override
+    public long getDoubleSteps() {
+        return DOUBLE_STEPS.sum();
+    }
+
+    @Override
+    public double getParseMillis() {
+        return PARSE_NANOS.sum() / 1e6;
+    }
+
+    @Override
+    public double getConvertMillis() {
+        return CONVERT_NANOS.sum() / 1e6;
+    }
+
+    @Override
+    public double getWriteMillis() {
+        return WRITE_NANOS.sum() / 1e6;
+    }
+
+    /** Name under which the MBean is registered. */
+    private static final String NAME = "enigma:type=Metrics";
+
+    /** The registered instance, or null if not started. */
+    private static Metrics _instance;
+
+    /** Value of System.nanoTime() at the end of the last interval. */
+    private long _lastTime;
+    /** Characters converted at the end of the last interval. */
+    private long _lastCharacters;
+    /** Conversion rate over the last interval, in characters per
+     *  second. */
+    private double _rate;
+
+}
@@ -0,0 +1,41 @@
+package enigma;
+
+/** The management interface of Metrics, through which its counters are
+ *  published over JMX.
+ *  @author Yiwen Feng
+ */
+public interface MetricsMBean {
+
+    /** Return the number of characters converted. */
+    long getCharacters();
+
+    /** Return the number of characters converted per second over the
+     *  most recent reporting interval. */
+    double getCharactersPerSecond();
+
+    /** Return the number of message lines converted. */
+    long getMessages();
+
+    /** Return the number of setting lines processed. */
+    long getSettingBlocks();
+
+    /** Return the average number of message lines per setting line. */
+    double getMessagesPerBlock();
+
+    /** Return the number of single-position rotor steps. */
+    long getRotorSteps();
+
+    /** Return the number of steps taken by a rotor because it was itself
+     *  at a notch (the double steps of middle rotors). */
+    long getDoubleSteps();
+
+    /** Return the milliseconds spent reading configurations. */
+    double getParseMillis();
+
+    /** Return the milliseconds spent converting messages. */
+    double getConvertMillis();
+
+    /** Return the milliseconds spent writing output. */
+    double getWriteMillis();
+
+}
@@ -1,74 +1,76 @@
-package enigma;
-
-
-import static enigma.EnigmaException.*;
-
-/** Class that represents a rotating rotor in the enigma machine.
- *  @author Yiwen Feng
- */
-class MovingRotor extends Rotor {
-
-    /** A rotor named NAME whose permutation in its default setting is
-     *  PERM, and whose notches are at the positions indicated in NOTCHES.
-     *  The Rotor is initally in its 0 setting (first character of its
-     *  alphabet).
-     */
-
-    protected String _notches;
-    /** process.
-     * @param notches ferf
-     * @param perm ferf
-     * @param name gfsd*/
-    MovingRotor(String name, Permutation perm, String notches) {
-        super(name, perm);
-        _notches = notches;
-        _setting = 0;
-        _needrotate = false;
-    }
-
-    @Override
-    void advance() {
-        if (setting() != alphabet().size() - 1) {
-            _setting++;
-        } else {
-            _setting = 0;
-        }
-    }
-
-    /** comment.
-     * @return  */
-
-    boolean needrotate() {
-        return _needrotate;
-    }
-
-    /** comment. */
-    void setneedrotate() {
-        _needrotate = true;
-    }
-
-    /** comment. */
-    void freenotch() {
-        _needrotate = false;
-    }
-
-    @Override
-    boolean atNotch() {
-        for (int i = 0; i < _notches.length(); i++) {
-            char x = _notches.charAt(i);
-            if (x == permutation().alphabet().toChar(setting())) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    @Override
-    boolean rotates() {
-        return true;
-    }
-
-    /** comment. */
-    private boolean _needrotate;
-
-}
+package enigma;
+
+
+import static enigma.EnigmaException.*;
+
+/** Class that represents a rotating rotor in the enigma machine.
+ *  @author Yiwen Feng
+ */
+class MovingRotor extends Rotor {
+
+    /** A rotor named NAME whose permutation in its default setting is
+     *  PERM, and whose notches are at the positions indicated in NOTCHES.
+     *  The Rotor is initally in its 0 setting (first character of its
+     *  alphabet).
+     */
+
+    protected String _notches;
+    /** process.
+     * @param notches ferf
+     * @param perm ferf
+     * @param name gfsd*/
+    MovingRotor(String name, Permutation perm, String notches) {
+        this(name, perm, notches, table(perm, true), table(perm, false));
+    }
+
+    /** A rotor named NAME with permutation PERM and notches NOTCHES, as
+     *  for MovingRotor(NAME, PERM, NOTCHES), whose conversion tables are
+     *  FORWARD and BACKWARD (see Rotor). */
+    MovingRotor(String name, Permutation perm, String notches,
+                int[] forward, int[] backward) {
+        super(name, perm, forward, backward);
+        _notches = notches;
+        _notchAt = new boolean[size()];
+        for (int i = 0; i < notches.length(); i++) {
+            if (alphabet().contains(notches.charAt(i))) {
+                _notchAt[alphabet().toInt(notches.charAt(i))] = true;
+            }
+        }
+    }
+
+    /** A rotor with the same name, wiring, notches, setting and ring as
+     *  PROTO. */
+    MovingRotor(MovingRotor proto) {
+        super(proto);
+        _notches = proto._notches;
+        _notchAt = proto._notchAt;
+    }
+
+    @Override
+    MovingRotor copy() {
+        return new MovingRotor(this);
+    }
+
+    @Override
+    void advance() {
+        if (setting() != size() - 1) {
+            set(setting() + 1);
+        } else {
+            set(0);
+        }
+    }
+
+    @Override
+    boolean notchAt(int posn) {
+        return _notchAt[posn];
+    }
+
+    @Override
+    boolean rotates() {
+        return true;
+    }
+
+    /** Whether I am at a notch, indexed by setting. */
+    private final boolean[] _notchAt;
+
+}
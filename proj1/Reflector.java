@@ -1,28 +1,46 @@
-package enigma;
-
-import static enigma.EnigmaException.*;
-
-/** Class that represents a reflector in the enigma.
- *  @author Yiwen Feng
- */
-class Reflector extends FixedRotor {
-
-    /** A non-moving rotor named NAME whose permutation at the 0 setting
-     * is PERM. */
-    Reflector(String name, Permutation perm) {
-        super(name, perm);
-    }
-
-    @Override
-    void set(int posn) {
-        if (posn != 0) {
-            throw error("reflector has only one position");
-        }
-    }
-
-    @Override
-    boolean reflecting() {
-        return true;
-    }
-
-}
+package enigma;
+
+import static enigma.EnigmaException.*;
+
+/** Class that represents a reflector in the enigma.
+ *  @author Yiwen Feng
+ */
+class Reflector extends FixedRotor {
+
+    /** A non-moving rotor named NAME whose permutation at the 0 setting
+     * is PERM. */
+    Reflector(String name, Permutation perm) {
+        super(name, perm);
+    }
+
+    /** A reflector named NAME with permutation PERM whose conversion
+     *  tables are FORWARD and BACKWARD (see Rotor). */
+    Reflector(String name, Permutation perm, int[] forward,
+              int[] backward) {
+        super(name, perm, forward, backward);
+    }
+
+    /** A reflector with the same name and wiring as PROTO. */
+    Reflector(Reflector proto) {
+        super(proto);
+    }
+
+    @Override
+    Reflector copy() {
+        return new Reflector(this);
+    }
+
+    @Override
+    void set(int posn) {
+        if (posn != 0) {
+            throw error("reflector has only one position");
+        }
+        super.set(posn);
+    }
+
+    @Override
+    boolean reflecting() {
+        return true;
+    }
+
+}
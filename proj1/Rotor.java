@@ -1,149 +1,224 @@
-package enigma;
-
-import static enigma.EnigmaException.*;
-
-/** Superclass that represents a rotor in the enigma machine.
- *  @author Yiwen Feng
- */
-class Rotor {
-
-    /** A rotor named NAME whose permutation is given by PERM. */
-    Rotor(String name, Permutation perm) {
-        _name = name;
-        _permutation = perm;
-        _setting = 0;
-        _isUsed = false;
-
-    }
-
-    /** Return my name. */
-    String name() {
-        return _name;
-    }
-
-    /** Return my alphabet. */
-    Alphabet alphabet() {
-        return _permutation.alphabet();
-    }
-
-    /** Return my permutation. */
-    Permutation permutation() {
-        return _permutation;
-    }
-
-    /** Return the size of my alphabet. */
-    int size() {
-        return _permutation.alphabet().size();
-    }
-
-    /** Return true iff I have a ratchet and can move. */
-    boolean rotates() {
-        return false;
-    }
-
-    /** Return true iff I reflect. */
-    boolean reflecting() {
-        return false;
-    }
-
-    /** Return my current setting. */
-    int setting() {
-        return _setting;
-    }
-
-    /** Set setting() to POSN.  */
-    void set(int posn) {
-        _setting = posn;
-    }
-
-    /** Set setting() to character CPOSN. */
-    void set(char cposn) {
-        _setting = permutation().alphabet().toInt(cposn);
-    }
-
-    /** Return the conversion of P (an integer in the range 0..size()-1)
-     *  according to my permutation. */
-    int convertForward(int p) {
-        int v = p + setting() - distance();
-        v = permutation().permute(v);
-        v = v - setting() + distance();
-        return permutation().wrap(v);
-    }
-
-    /** Return the conversion of E (an integer in the range 0..size()-1)
-     *  according to the inverse of my permutation. */
-    int convertBackward(int e) {
-        int v = e + setting() - distance();
-        v = permutation().wrap(v);
-        v = permutation().invert(v) - setting() + distance();
-        return permutation().wrap(v);
-    }
-
-    /** Returns true iff I am positioned to allow the rotor to my left
-     *  to advance. */
-    boolean atNotch() {
-        return false;
-    }
-
-    /** Advance me one position, if possible. By default, does nothing. */
-    void advance() {
-    }
-
-    /** comment. */
-    void setneedrotate() {
-    }
-
-    /** comment.
-     * @return  */
-    boolean needrotate() {
-        return false;
-    }
-
-    /** comment. */
-    void freenotch() {
-
-    }
-    @Override
-    public String toString() {
-        return "Rotor " + _name;
-    }
-
-    /** comment.
-     * @return  */
-    public boolean isUsed() {
-        return _isUsed;
-    }
-    /** comment. */
-    public void setisUsed() {
-        _isUsed = true;
-    }
-    /** comment. */
-    public void clearused() {
-        _isUsed = false;
-    }
-    /** comment.
-     * @param c */
-    public void setRing(char c) {
-        permutation().setRing(c);
-    }
-    /** comment.
-     * @return */
-    public int distance() {
-        int x = permutation().getRing() - permutation().alphabet().toChar(0);
-        return (int) x;
-    }
-    /** My name. */
-    private final String _name;
-
-    /** The permutation implemented by this rotor in its 0 position. */
-    private Permutation _permutation;
-
-    /** comment. */
-    protected int _setting;
-
-    /** comment. */
-    private boolean _isUsed;
-
-
-
-}
+package enigma;
+
+import static enigma.EnigmaException.*;
+
+/** Superclass that represents a rotor in the enigma machine.
+ *  @author Yiwen Feng
+ */
+class Rotor {
+
+    /** Size of the largest alphabet for which rotors keep conversion
+     *  tables, which hold the square of the size entries each.  Rotors
+     *  on larger alphabets convert by arithmetic on their permutation. */
+    static final int MAX_TABLE_SIZE = 256;
+
+    /** A rotor named NAME whose permutation is given by PERM. */
+    Rotor(String name, Permutation perm) {
+        this(name, perm, table(perm, true), table(perm, false));
+    }
+
+    /** A rotor named NAME whose permutation is given by PERM, and whose
+     *  forward and backward conversions are FORWARD and BACKWARD, laid
+     *  out as forwardTable() and backwardTable() return them for PERM.
+     *  The tables are shared, not copied.  They must be null exactly
+     *  when PERM's alphabet is too large for tables. */
+    Rotor(String name, Permutation perm, int[] forward, int[] backward) {
+        _name = name;
+        _permutation = perm;
+        int n = size();
+        if (!tabulated(n)) {
+            if (forward != null || backward != null) {
+                throw error("rotor conversion table has the wrong size");
+            }
+        } else if (forward == null || backward == null
+                   || forward.length != n * n || backward.length != n * n) {
+            throw error("rotor conversion table has the wrong size");
+        }
+        _forward = forward;
+        _backward = backward;
+        set(0);
+    }
+
+    /** Return the conversion table for PERM laid out as described for
+     *  _forward, of forward conversions if FORWARD, else of backward
+     *  ones, or null if PERM's alphabet is too large for tables. */
+    static int[] table(Permutation perm, boolean forward) {
+        int n = perm.size();
+        if (!tabulated(n)) {
+            return null;
+        }
+        int[] result = new int[n * n];
+        for (int shift = 0; shift < n; shift++) {
+            for (int p = 0; p < n; p++) {
+                int c = forward ? perm.permute(p + shift)
+                    : perm.invert(p + shift);
+                result[shift * n + p] = perm.wrap(c - shift);
+            }
+        }
+        return result;
+    }
+
+    /** Return true iff rotors on an alphabet of SIZE characters keep
+     *  conversion tables. */
+    static boolean tabulated(int size) {
+        return size <= MAX_TABLE_SIZE;
+    }
+
+    /** A rotor with the same name, wiring, setting and ring as PROTO,
+     *  sharing PROTO's conversion tables. */
+    Rotor(Rotor proto) {
+        _name = proto._name;
+        _permutation = proto._permutation;
+        _forward = proto._forward;
+        _backward = proto._backward;
+        _ring = proto._ring;
+        set(proto._setting);
+    }
+
+    /** Return a new rotor of my kind whose state is a copy of mine. */
+    Rotor copy() {
+        return new Rotor(this);
+    }
+
+    /** Return my name. */
+    String name() {
+        return _name;
+    }
+
+    /** Return my alphabet. */
+    Alphabet alphabet() {
+        return _permutation.alphabet();
+    }
+
+    /** Return my permutation. */
+    Permutation permutation() {
+        return _permutation;
+    }
+
+    /** Return the size of my alphabet. */
+    int size() {
+        return _permutation.alphabet().size();
+    }
+
+    /** Return true iff I have a ratchet and can move. */
+    boolean rotates() {
+        return false;
+    }
+
+    /** Return true iff I reflect. */
+    boolean reflecting() {
+        return false;
+    }
+
+    /** Return my current setting. */
+    int setting() {
+        return _setting;
+    }
+
+    /** Set setting() to POSN.  */
+    void set(int posn) {
+        _setting = posn;
+        _shift = permutation().wrap(_setting - _ring);
+        _base = _forward == null ? 0 : _shift * size();
+    }
+
+    /** Set setting() to character CPOSN. */
+    void set(char cposn) {
+        set(permutation().alphabet().toInt(cposn));
+    }
+
+    /** Return the conversion of P (an integer in the range 0..size()-1)
+     *  according to my permutation. */
+    int convertForward(int p) {
+        if (_forward == null) {
+            return _permutation.wrap(_permutation.permute(p + _shift)
+                                     - _shift);
+        }
+        return _forward[_base + p];
+    }
+
+    /** Return the conversion of E (an integer in the range 0..size()-1)
+     *  according to the inverse of my permutation. */
+    int convertBackward(int e) {
+        if (_backward == null) {
+            return _permutation.wrap(_permutation.invert(e + _shift)
+                                     - _shift);
+        }
+        return _backward[_base + e];
+    }
+
+    /** Return my forward conversions, laid out as described for
+     *  _forward, or null if my alphabet is too large for tables.  The
+     *  result is shared and must not be modified. */
+    int[] forwardTable() {
+        return _forward;
+    }
+
+    /** Return my backward conversions, laid out as forwardTable().  The
+     *  result is shared and must not be modified. */
+    int[] backwardTable() {
+        return _backward;
+    }
+
+    /** Returns true iff I am positioned to allow the rotor to my left
+     *  to advance. */
+    boolean atNotch() {
+        return notchAt(setting());
+    }
+
+    /** Returns true iff I would be at a notch in setting POSN. */
+    boolean notchAt(int posn) {
+        return false;
+    }
+
+    /** Advance me one position, if possible. By default, does nothing. */
+    void advance() {
+    }
+
+    @Override
+    public String toString() {
+        return "Rotor " + _name;
+    }
+
+    /** comment.
+     * @param c */
+    public void setRing(char c) {
+        _ring = permutation().alphabet().toInt(c);
+        set(_setting);
+    }
+    /** comment.
+     * @return */
+    public int distance() {
+        return _ring;
+    }
+    /** My name. */
+    private final String _name;
+
+    /** The permutation implemented by this rotor in its 0 position. */
+    private Permutation _permutation;
+
+    /** comment. */
+    private int _setting;
+
+    /** Index of my ring setting in my alphabet. */
+    private int _ring;
+
+    /** My setting less my ring, modulo size(). */
+    private int _shift;
+
+    /** Offset of the row of _forward and _backward for my current
+     *  setting and ring. */
+    private int _base;
+
+    /** Forward conversions, one row of size() entries for each value of
+     *  setting() - distance() modulo size(), or null if size() exceeds
+     *  MAX_TABLE_SIZE. */
+    private final int[] _forward;
+
+    /** Backward conversions, laid out as for _forward. */
+    private final int[] _backward;
+
+
+
+
+}
@@ -0,0 +1,99 @@
+package enigma;
+
+import static enigma.EnigmaException.*;
+
+/** A measure of how much a candidate decryption looks like plaintext.
+ *  Texts are given as arrays of alphabet indices; higher scores are
+ *  better.  Scorers are used by many threads at once, so they must not
+ *  modify their own state while scoring.
+ *  @author Yiwen Feng
+ */
+interface Scorer {
+
+    /** Return the score of the LEN indices TEXT[0 .. LEN-1]. */
+    double score(int[] text, int len);
+
+    /** Return a scorer giving the index of coincidence of texts over an
+     *  alphabet of SIZE characters: the chance that two characters drawn
+     *  from different positions are the same.  It is about 0.066 for
+     *  English and 1 / SIZE for random text. */
+    static Scorer indexOfCoincidence(int size) {
+        return (text, len) -> {
+            int[] counts = new int[size];
+            for (int i = 0; i < len; i++) {
+                counts[text[i]]++;
+            }
+            long same = 0;
+            for (int c : counts) {
+                same += (long) c * (c - 1);
+            }
+            return len < 2 ? 0 : (double) same / ((long) len * (len - 1));
+        };
+    }
+
+    /** Return a scorer giving the log-likelihood of texts as sequences of
+     *  N-grams whose frequencies are those of the characters of CORPUS
+     *  that are in ALPHA, with every N-gram counted at least once.
+     *  Requires SIZE ** N, where SIZE is the size of ALPHA, to be at most
+     *  2 ** 24. */
+    static Scorer ngrams(Alphabet alpha, String corpus, int n) {
+        int size = alpha.size();
+        int states = 1;
+        for (int k = 0; k < n; k++) {
+            states *= size;
+            if (states > 1 << 24) {
+                throw error("%d-grams are too many to score", n);
+            }
+        }
+        long[] counts = new long[states];
+        long total = states;
+        int gram = 0;
+        int have = 0;
+        for (int i = 0; i < corpus.length(); i++) {
+            char c = corpus.charAt(i);
+            if (!alpha.contains(c)) {
+                continue;
+            }
+            gram = (gram * size + alpha.toInt(c)) % states;
+            have++;
+            if (have >= n) {
+                counts[gram]++;
+                total++;
+            }
+        }
+        double[] logP = new double[states];
+        for (int g = 0; g < states; g++) {
+            logP[g] = Math.log((counts[g] + 1.0) / total);
+        }
+        final int numStates = states;
+        return (text, len) -> {
+            double sum = 0;
+            int g = 0;
+            for (int i = 0; i < len; i++) {
+                g = (g * size + text[i]) % numStates;
+                if (i >= n - 1) {
+                    sum += logP[g];
+                }
+            }
+            return sum;
+        };
+    }
+
+    /** Return a scorer giving the number of positions at which texts
+     *  agree with the known plaintext CRIB, whose blanks are ignored and
+     *  whose other characters must be in ALPHA. */
+    static Scorer crib(Alphabet alpha, String crib) {
+        int[] indices = crib.chars().filter(c -> c != ' ')
+            .map(c -> alpha.toInt((char) c)).toArray();
+        return (text, len) -> {
+            int same = 0;
+            for (int i = 0; i < Math.min(len, indices.length); i++) {
+                if (text[i] == indices[i]) {
+                    same++;
+                }
+            }
+            return same;
+        };
+    }
+
+}
@@ -0,0 +1,191 @@
+package enigma;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static enigma.EnigmaException.*;
+
+/** The rotor orders and settings tried by a search over the machines of
+ *  one configuration.  By default, every slot may hold any rotor of the
+ *  right kind, no rotor appearing twice, and every rotor but the
+ *  reflector may have any setting.  A search is divided into tasks, each
+ *  trying one rotor order with one setting of the leftmost free slot.
+ *  @author Yiwen Feng
+ */
+class SearchSpace {
+
+    /** The search space of all machines configured as CONFIG. */
+    SearchSpace(Machine config) {
+        _config = config;
+        _alphabet = config.alphabet();
+        _slots = config.numRotors();
+        _left = _slots - config.numPawls();
+        _choices = new ArrayList<>();
+        for (int s = 0; s < _slots; s++) {
+            List<String> names = new ArrayList<>();
+            for (Rotor r : config.allRotors()) {
+                boolean fits = s == 0 ? r.reflecting()
+                    : s < _left ? !r.reflecting() && !r.rotates()
+                    : r.rotates();
+                if (fits) {
+                    names.add(r.name());
+                }
+            }
+            _choices.add(names);
+        }
+        _fixed = new int[_slots];
+        Arrays.fill(_fixed, -1);
+        _fixed[0] = 0;
+        _free = free();
+    }
+
+    /** Return my alphabet. */
+    Alphabet alphabet() {
+        return _alphabet;
+    }
+
+    /** Return the number of rotor slots. */
+    int numRotors() {
+        return _slots;
+    }
+
+    /** Return the slot of the leftmost moving rotor. */
+    int leftmostMoving() {
+        return _left;
+    }
+
+    /** Allow only the rotors named NAMES in slot SLOT. */
+    void restrict(int slot, String... names) {
+        for (String name : names) {
+            if (_config.allRotors().stream()
+                .noneMatch(r -> r.name().equals(name))) {
+                throw error("no rotor named %s", name);
+            }
+        }
+        _choices.set(slot, Arrays.asList(names));
+    }
+
+    /** Try only SETTING for the rotor in slot SLOT. */
+    void fixSetting(int slot, char setting) {
+        _fixed[slot] = _alphabet.toInt(setting);
+        _free = free();
+    }
+
+    /** Return every allowed rotor order, each listing the names of the
+     *  rotors in slot order. */
+    List<String[]> orders() {
+        List<String[]> result = new ArrayList<>();
+        addOrders(new String[_slots], 0, result);
+        return result;
+    }
+
+    /** Return the number of tasks into which a search over ORDERS rotor
+     *  orders is divided. */
+    int numTasks(int orders) {
+        return orders * (_free.length == 0 ? 1 : _alphabet.size());
+    }
+
+    /** Return the rotor order of task TASK, ORDERS being orders(). */
+    String[] order(List<String[]> orders, int task) {
+        return orders.get(task / numTasks(1));
+    }
+
+    /** Return the first rotor settings, by slot, tried by task TASK. */
+    int[] start(int task) {
+        int[] result = _fixed.clone();
+        for (int s : _free) {
+            result[s] = 0;
+        }
+        if (_free.length > 0) {
+            result[_free[0]] = task % _alphabet.size();
+        }
+        return result;
+    }
+
+    /** Change SETTINGS to the next settings tried by its task after
+     *  SETTINGS, returning false if there are none. */
+    boolean next(int[] settings) {
+        int j = _free.length - 1;
+        while (j >= 1 && settings[_free[j]] == _alphabet.size() - 1) {
+            settings[_free[j]] = 0;
+            j--;
+        }
+        if (j < 1) {
+            return false;
+        }
+        settings[_free[j]]++;
+        return true;
+    }
+
+    /** Return a compiled machine with the rotors ORDER, all at setting and
+     *  ring 0, and with the plugboard having cycles PLUGBOARD. */
+    CompiledMachine compile(String[] order, String plugboard) {
+        Machine machine = new Machine(_alphabet, _slots, _slots - _left,
+                                      _config.allRotors());
+        machine.insertRotors(order);
+        machine.setPlugboard(new Permutation(plugboard, _alphabet));
+        return machine.compile();
+    }
+
+    /** Return the setting line, in the form read by Main, for the rotors
+     *  ROTORS with settings SETTINGS[1 ..], rings RINGS[1 ..] and a
+     *  plugboard with cycles PLUGBOARD. */
+    String settingLine(String[] rotors, int[] settings, int[] rings,
+                       String plugboard) {
+        StringBuilder result = new StringBuilder("*");
+        for (String name : rotors) {
+            result.append(' ').append(name);
+        }
+        result.append(' ');
+        for (int s = 1; s < _slots; s++) {
+            result.append(_alphabet.toChar(settings[s]));
+        }
+        result.append(' ');
+        for (int s = 1; s < _slots; s++) {
+            result.append(_alphabet.toChar(rings[s]));
+        }
+        if (!plugboard.isEmpty()) {
+            result.append(' ').append(plugboard);
+        }
+        return result.toString();
+    }
+
+    /** Return the slots whose settings are searched, leftmost first. */
+    private int[] free() {
+        return IntStream.range(1, _slots).filter(s -> _fixed[s] < 0)
+            .toArray();
+    }
+
+    /** Add to ORDERS each allowed choice of rotors for slots SLOT and
+     *  beyond, given the choices in ORDER[0 .. SLOT-1]. */
+    private void addOrders(String[] order, int slot, List<String[]> orders) {
+        if (slot == _slots) {
+            orders.add(order.clone());
+            return;
+        }
+        for (String name : _choices.get(slot)) {
+            if (!Arrays.asList(order).subList(0, slot).contains(name)) {
+                order[slot] = name;
+                addOrders(order, slot + 1, orders);
+            }
+        }
+    }
+
+    /** The configuration searched. */
+    private final Machine _config;
+    /** Alphabet of the configuration. */
+    private final Alphabet _alphabet;
+    /** Number of rotor slots. */
+    private final int _slots;
+    /** Slot of the leftmost moving rotor. */
+    private final int _left;
+    /** Names of the rotors allowed in each slot. */
+    private final List<List<String>> _choices;
+    /** The only setting tried for each slot, or -1 where all are. */
+    private final int[] _fixed;
+    /** The slots whose settings are searched, leftmost first. */
+    private int[] _free;
+
+}
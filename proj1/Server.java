@@ -0,0 +1,318 @@
+package enigma;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static enigma.EnigmaException.*;
+
+/** A long-running Enigma service.  Each connection carries one request:
+ *  the client sends input in the format read by Main, encoded in UTF-8,
+ *  and then shuts down its side of the connection.  The server answers
+ *  with a sequence of frames, each a type byte, a length, and that many
+ *  bytes: DATA frames carry UTF-8 output as Main would write it, and the
+ *  answer ends with an OK frame or an ERROR frame holding the message.
+ *  Requests are served concurrently on machines from a shared pool.  A
+ *  connection on which no input arrives for longer than the read
+ *  timeout is closed without an answer.
+ *  @author Yiwen Feng
+ */
+class Server {
+
+    /** Frame type of a piece of output. */
+    static final byte DATA = 'D';
+    /** Frame type ending a successful answer. */
+    static final byte OK = 'K';
+    /** Frame type ending an answer with an error message. */
+    static final byte ERROR = 'E';
+
+    /** Default read timeout, in milliseconds. */
+    static final long READ_TIMEOUT = 30000;
+
+    /** A server that sets up machines from MACHINES through MAIN. */
+    Server(Main main, MachinePool machines) {
+        _main = main;
+        _machines = machines;
+    }
+
+    /** Return the socket address named by ADDRESS: a port number on the
+     *  loopback interface, or else the path of a Unix-domain socket. */
+    static SocketAddress address(String address) {
+        if (address.matches("\\d+")) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                         Integer.parseInt(address));
+        }
+        return UnixDomainSocketAddress.of(address);
+    }
+
+    /** Set the read timeout to MILLIS milliseconds. */
+    void setReadTimeout(long millis) {
+        _readTimeout = millis;
+    }
+
+    /** Accept and serve requests at ADDRESS until the process is
+     *  stopped. */
+    void serve(String address) {
+        bind(address);
+        serve();
+    }
+
+    /** Listen for requests at ADDRESS.  A Unix-domain socket is deleted
+     *  when serve returns or the process exits. */
+    void bind(String address) {
+        SocketAddress where = address(address);
+        _address = address;
+        try {
+            if (where instanceof UnixDomainSocketAddress) {
+                _socketFile = ((UnixDomainSocketAddress) where).getPath();
+                Files.deleteIfExists(_socketFile);
+                _cleanup = new Thread(this::deleteSocketFile);
+                Runtime.getRuntime().addShutdownHook(_cleanup);
+                _server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            } else {
+                _server = ServerSocketChannel.open();
+            }
+            _server.bind(where);
+        } catch (IOException excp) {
+            throw error("could not serve at %s", address);
+        }
+    }
+
+    /** Accept and serve requests at the address given to bind until the
+     *  process is stopped or stop is called. */
+    void serve() {
+        ExecutorService workers = Executors.newCachedThreadPool(Server::daemon);
+        ScheduledThreadPoolExecutor timer =
+            new ScheduledThreadPoolExecutor(1, Server::daemon);
+        timer.setRemoveOnCancelPolicy(true);
+        try (ServerSocketChannel server = _server) {
+            while (true) {
+                SocketChannel client = server.accept();
+                workers.execute(() -> answer(client, timer));
+            }
+        } catch (IOException excp) {
+            if (!_stopped) {
+                throw error("could not serve at %s", _address);
+            }
+        } finally {
+            workers.shutdownNow();
+            timer.shutdownNow();
+            deleteSocketFile();
+            if (_cleanup != null) {
+                try {
+                    Runtime.getRuntime().removeShutdownHook(_cleanup);
+                } catch (IllegalStateException excp) {
+                    /* The process is already exiting. */
+                }
+            }
+        }
+    }
+
+    /** Stop accepting requests, making serve return. */
+    void stop() {
+        _stopped = true;
+        try {
+            _server.close();
+        } catch (IOException excp) {
+            return;
+        }
+    }
+
+    /** Return a new daemon thread running R. */
+    private static Thread daemon(Runnable r) {
+        Thread result = new Thread(r);
+        result.setDaemon(true);
+        return result;
+    }
+
+    /** Delete the file of my Unix-domain socket, if any. */
+    private void deleteSocketFile() {
+        try {
+            if (_socketFile != null) {
+                Files.deleteIfExists(_socketFile);
+            }
+        } catch (IOException excp) {
+            return;
+        }
+    }
+
+    /** Read one request from CLIENT, answer it, and close CLIENT, which
+     *  TIMER closes if a read waits too long. */
+    private void answer(SocketChannel client,
+                        ScheduledThreadPoolExecutor timer) {
+        Machine machine = _machines.acquire();
+        try (client) {
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(outputOf(client), Transcriber.CHUNK));
+            Reader in = new InputStreamReader(timedInputOf(client, timer),
+                                              StandardCharsets.UTF_8);
+            try {
+                Transcriber transcriber =
+                    new Transcriber(_main, machine, new FrameWriter(out));
+                char[] buf = new char[Transcriber.CHUNK];
+                for (int n = in.read(buf); n >= 0; n = in.read(buf)) {
+                    transcriber.feed(buf, 0, n);
+                }
+                transcriber.finish();
+                writeFrame(out, OK, new byte[0]);
+            } catch (RuntimeException excp) {
+                String msg = excp instanceof EnigmaException
+                    ? excp.getMessage() : "internal error: " + excp;
+                writeFrame(out, ERROR, msg.getBytes(StandardCharsets.UTF_8));
+            }
+            out.flush();
+        } catch (IOException excp) {
+            return;
+        } finally {
+            _machines.release(machine);
+        }
+    }
+
+    /** Return an InputStream reading from CHANNEL.  Unlike the streams
+     *  from Channels, it does not lock the channel while blocked, so
+     *  another thread may write to CHANNEL at the same time. */
+    static InputStream inputOf(SocketChannel channel) {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                return channel.read(ByteBuffer.wrap(b, off, len));
+            }
+        };
+    }
+
+    /** Return an InputStream reading from CHANNEL as inputOf does, but
+     *  using TIMER to close CHANNEL if a read waits longer than my read
+     *  timeout. */
+    private InputStream timedInputOf(SocketChannel channel,
+                                     ScheduledThreadPoolExecutor timer) {
+        InputStream in = inputOf(channel);
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                ScheduledFuture<?> alarm = timer.schedule(() -> {
+                    try {
+                        channel.close();
+                    } catch (IOException excp) {
+                        return;
+                    }
+                }, _readTimeout, TimeUnit.MILLISECONDS);
+                try {
+                    return in.read(b, off, len);
+                } finally {
+                    alarm.cancel(false);
+                }
+            }
+        };
+    }
+
+    /** Return an OutputStream writing to CHANNEL, which, like inputOf,
+     *  may be used while another thread reads from CHANNEL. */
+    static OutputStream outputOf(SocketChannel channel) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ByteBuffer buf = ByteBuffer.wrap(b, off, len);
+                while (buf.hasRemaining()) {
+                    channel.write(buf);
+                }
+            }
+        };
+    }
+
+    /** Write a frame of type TYPE holding BYTES to OUT. */
+    static void writeFrame(DataOutputStream out, byte type, byte[] bytes)
+        throws IOException {
+        out.writeByte(type);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /** A Writer that sends what is written to it as DATA frames. */
+    private static class FrameWriter extends Writer {
+
+        /** A FrameWriter sending frames to OUT. */
+        FrameWriter(DataOutputStream out) {
+            _out = out;
+        }
+
+        @Override
+        public void write(char[] buf, int off, int len) throws IOException {
+            if (len > 0) {
+                writeFrame(_out, DATA, new String(buf, off, len)
+                           .getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            _out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            _out.close();
+        }
+
+        /** Destination of the frames. */
+        private final DataOutputStream _out;
+    }
+
+    /** Sets up machines from setting lines. */
+    private final Main _main;
+    /** Source of machines for requests. */
+    private final MachinePool _machines;
+    /** Longest wait for input on a connection, in milliseconds. */
+    private volatile long _readTimeout = READ_TIMEOUT;
+    /** Address given to bind. */
+    private String _address;
+    /** Socket accepting connections. */
+    private ServerSocketChannel _server;
+    /** File of my Unix-domain socket, or null. */
+    private Path _socketFile;
+    /** Deletes _socketFile when the process exits, or null. */
+    private Thread _cleanup;
+    /** True once stop has been called. */
+    private volatile boolean _stopped;
+
+}
@@ -0,0 +1,117 @@
+package enigma;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static enigma.MainTest.*;
+
+/** The suite of all JUnit tests for the Server and Client classes.
+ *  @author Yiwen Feng
+ */
+public class ServerTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(20);
+
+    /** Directory holding the files of each test. */
+    @Rule
+    public TemporaryFolder dir = new TemporaryFolder();
+
+    /* ***** TESTING UTILITIES ***** */
+
+    /** Start a server on the naval configuration at a Unix-domain socket
+     *  in the test directory. */
+    @Before
+    public void startServer() throws IOException {
+        File config = dir.newFile("naval.conf");
+        Files.write(config.toPath(), CONFIG.getBytes(StandardCharsets.UTF_8));
+        _socket = new File(dir.getRoot(), "enigma.sock");
+        _server = new Main(new String[] {
+            "--server", _socket.getPath(), config.getPath()
+        }).server();
+        _server.setReadTimeout(500);
+        _server.bind(_socket.getPath());
+        _serving = new Thread(_server::serve);
+        _serving.start();
+    }
+
+    /** Stop the server started by startServer. */
+    @After
+    public void stopServer() throws InterruptedException {
+        _server.stop();
+        _serving.join();
+    }
+
+    /** Return the answer of the server to INPUT. */
+    private String request(String input) {
+        StringWriter output = new StringWriter();
+        new Client(_socket.getPath(), new StringReader(input), output).run();
+        return output.toString();
+    }
+
+    /** Path of the server's socket. */
+    private File _socket;
+    /** The server under test. */
+    private Server _server;
+    /** Thread running the server. */
+    private Thread _serving;
+
+    /* ***** TESTS ***** */
+
+    @Test
+    public void checkRequest() {
+        assertEquals(output(Transcriber.NEWLINE), request(INPUT));
+        assertEquals(output(Transcriber.NEWLINE), request(INPUT));
+    }
+
+    @Test
+    public void checkError() {
+        try {
+            request("* B Beta" + Transcriber.NEWLINE + "HELLO");
+            fail("short setting line accepted");
+        } catch (EnigmaException excp) {
+            assertTrue(excp.getMessage(),
+                       excp.getMessage().startsWith("internal error"));
+        }
+        try {
+            request("HELLO");
+            fail("input without a setting accepted");
+        } catch (EnigmaException excp) {
+            assertEquals("The input might not start with a setting.",
+                         excp.getMessage());
+        }
+        assertEquals(output(Transcriber.NEWLINE), request(INPUT));
+    }
+
+    @Test
+    public void checkReadTimeout() throws IOException {
+        try (SocketChannel idle =
+             SocketChannel.open(Server.address(_socket.getPath()))) {
+            assertEquals(-1, Server.inputOf(idle).read());
+        }
+        assertEquals(output(Transcriber.NEWLINE), request(INPUT));
+    }
+
+    @Test
+    public void checkSocketDeleted() throws InterruptedException {
+        assertTrue(_socket.exists());
+        _server.stop();
+        _serving.join();
+        assertFalse(_socket.exists());
+    }
+
+}
@@ -0,0 +1,149 @@
+package enigma;
+
+import java.util.List;
+
+/** The stepping schedule of the moving rotors of a machine, operating on
+ *  arrays of rotor settings.  Position #0 of such an array holds the
+ *  setting of the leftmost moving rotor.
+ *  @author Yiwen Feng
+ */
+class Stepper {
+
+    /** Largest number of states of the rotors to the right of the leftmost
+     *  moving rotor for which skip() uses precomputed jump tables. */
+    private static final int MAX_TABLE_STATES = 1 << 16;
+
+    /** A stepper for the moving rotors ROTORS, listed from left to right,
+     *  all of which have alphabets of size SIZE. */
+    Stepper(List<Rotor> rotors, int size) {
+        _size = size;
+        _notch = new boolean[rotors.size()][size];
+        for (int j = 0; j < rotors.size(); j++) {
+            for (int p = 0; p < size; p++) {
+                _notch[j][p] = rotors.get(j).notchAt(p);
+            }
+        }
+        long states = 1;
+        for (int j = 1; j < rotors.size() && states <= MAX_TABLE_STATES;
+             j++) {
+            states *= size;
+        }
+        _states = states <= MAX_TABLE_STATES ? (int) states : -1;
+    }
+
+    /** Return the number of moving rotors I step. */
+    int numMoving() {
+        return _notch.length;
+    }
+
+    /** Advance POS by one character, as Machine.machineAdvance would. */
+    void step(int[] pos) {
+        int m = _notch.length;
+        for (int j = 0; j < m; j++) {
+            if (j == m - 1 || _notch[j + 1][pos[j + 1]]
+                || (j > 0 && _notch[j][pos[j]])) {
+                pos[j] = pos[j] == _size - 1 ? 0 : pos[j] + 1;
+            }
+        }
+    }
+
+    /** Advance POS by N characters, using time logarithmic in N when the
+     *  number of possible rotor states permits. */
+    void skip(int[] pos, long n) {
+        int m = _notch.length;
+        if (m == 0 || n <= 0) {
+            return;
+        } else if (m == 1) {
+            pos[0] = (int) ((pos[0] + n) % _size);
+            return;
+        } else if (_states < 0) {
+            for (long k = 0; k < n; k++) {
+                step(pos);
+            }
+            return;
+        }
+        int level = 63 - Long.numberOfLeadingZeros(n);
+        buildLevels(level);
+        int state = encode(pos);
+        long carry = pos[0];
+        for (int k = 0; k <= level; k++) {
+            if ((n & (1L << k)) != 0) {
+                carry += _carry[k][state];
+                state = _jump[k][state];
+            }
+        }
+        pos[0] = (int) (carry % _size);
+        decode(state, pos);
+    }
+
+    /** Return the encoding of the settings in POS of all but the leftmost
+     *  moving rotor as a single state number. */
+    private int encode(int[] pos) {
+        int state = 0;
+        for (int j = 1; j < _notch.length; j++) {
+            state = state * _size + pos[j];
+        }
+        return state;
+    }
+
+    /** Store the settings encoded in STATE into POS[1..]. */
+    private void decode(int state, int[] pos) {
+        for (int j = _notch.length - 1; j > 0; j--) {
+            pos[j] = state % _size;
+            state /= _size;
+        }
+    }
+
+    /** Make sure that _jump and _carry hold levels 0 through LEVEL.  As
+     *  this is the only change made to me after construction, and skip
+     *  reads the levels only after calling it, one stepper may be shared
+     *  by machines on different threads. */
+    private synchronized void buildLevels(int level) {
+        if (_jump == null) {
+            _jump = new int[64][];
+            _carry = new int[64][];
+            int[] next = new int[_states];
+            int[] carry = new int[_states];
+            int[] pos = new int[_notch.length];
+            for (int s = 0; s < _states; s++) {
+                pos[0] = 0;
+                decode(s, pos);
+                step(pos);
+                next[s] = encode(pos);
+                carry[s] = pos[0];
+            }
+            _jump[0] = next;
+            _carry[0] = carry;
+            _levels = 1;
+        }
+        for (; _levels <= level; _levels++) {
+            int[] prevJump = _jump[_levels - 1];
+            int[] prevCarry = _carry[_levels - 1];
+            int[] next = new int[_states];
+            int[] carry = new int[_states];
+            for (int s = 0; s < _states; s++) {
+                int mid = prevJump[s];
+                next[s] = prevJump[mid];
+                carry[s] = (prevCarry[s] + prevCarry[mid]) % _size;
+            }
+            _jump[_levels] = next;
+            _carry[_levels] = carry;
+        }
+    }
+
+    /** Size of the rotors' alphabet. */
+    private final int _size;
+    /** Whether moving rotor #J is at a notch at each setting. */
+    private final boolean[][] _notch;
+    /** Number of states of all but the leftmost moving rotor, or -1 if
+     *  there are too many to tabulate. */
+    private final int _states;
+    /** _jump[K][S] is the state reached from state S after 2**K steps. */
+    private int[][] _jump;
+    /** _carry[K][S] is the number of times the leftmost moving rotor
+     *  advances in 2**K steps from state S, modulo the alphabet size. */
+    private int[][] _carry;
+    /** Number of levels of _jump and _carry built so far. */
+    private int _levels;
+
+}
@@ -0,0 +1,248 @@
+package enigma;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import static enigma.EnigmaException.*;
+
+/** Converts input made of setting lines and message lines, delivered in
+ *  chunks of any size, into output lines of five-letter groups.  Memory
+ *  use does not depend on the length of the input or of its lines.
+ *  @author Yiwen Feng
+ */
+class Transcriber {
+
+    /** Size of the conversion and output buffers. */
+    static final int CHUNK = 1 << 16;
+
+    /** Size of the conversion buffer once a message run longer than
+     *  CHUNK is seen in parallel mode. */
+    static final int PARALLEL_CHUNK = 1 << 22;
+
+    /** A Transcriber that sets up MACHINE through MAIN on each setting
+     *  line and writes converted messages to OUTPUT.  OUTPUT may be null
+     *  if write and flush are overridden. */
+    Transcriber(Main main, Machine machine, Writer output) {
+        _main = main;
+        _machine = machine;
+        _output = output;
+    }
+
+    /** If PARALLEL, convert long runs of message characters with
+     *  Machine.convertParallel. */
+    void setParallel(boolean parallel) {
+        _parallel = parallel;
+    }
+
+    /** Process the LEN characters of BUF starting at OFF. */
+    void feed(char[] buf, int off, int len) {
+        int end = off + len;
+        int i = off;
+        while (i < end) {
+            if (inMessage() && buf[i] != '\n' && buf[i] != '\r') {
+                int j = i;
+                while (j < end && buf[j] != '\n' && buf[j] != '\r') {
+                    j++;
+                }
+                convertRun(buf, i, j);
+                i = j;
+            } else if (accept(buf[i])) {
+                i++;
+            }
+        }
+    }
+
+    /** Return true iff the characters up to the next line terminator are
+     *  message characters, to be converted. */
+    boolean inMessage() {
+        return _state == MESSAGE;
+    }
+
+    /** Process the next input character C, which is a line terminator or
+     *  else is not part of a message run, returning true.  If C instead
+     *  begins a message, just note that and return false, so that C is
+     *  given again as part of a run. */
+    boolean accept(char c) {
+        if (_skipNewline) {
+            _skipNewline = false;
+            if (c == '\n') {
+                return true;
+            }
+        }
+        if (c == '\n' || c == '\r') {
+            endLine();
+            _skipNewline = c == '\r';
+        } else if (_state == SETTING || c == ' ') {
+            _setting.append(c);
+        } else if (c == '*') {
+            _state = SETTING;
+            _setting.append(c);
+        } else {
+            startMessage();
+            return false;
+        }
+        return true;
+    }
+
+    /** Return the number of letters written to the current output
+     *  line. */
+    int group() {
+        return _group;
+    }
+
+    /** Record that GROUP letters have been written to the current output
+     *  line. */
+    void setGroup(int group) {
+        _group = group;
+    }
+
+    /** Finish processing after the last call to feed, and flush all
+     *  output. */
+    void finish() {
+        if (_state != LINE_START || _setting.length() > 0) {
+            endLine();
+        }
+        if (!_started) {
+            throw error("The input might not start with a setting.");
+        }
+        flush();
+    }
+
+    /** Write out all buffered output. */
+    void flush() {
+        drain();
+        try {
+            if (_output != null) {
+                _output.flush();
+            }
+        } catch (IOException excp) {
+            throw error("could not write output");
+        }
+    }
+
+    /** Write the first LEN characters of BUF to the output. */
+    void write(char[] buf, int len) throws IOException {
+        _output.write(buf, 0, len);
+    }
+
+    /** Write the line terminator that ends each message line. */
+    void writeNewline() {
+        for (int k = 0; k < NEWLINE.length(); k++) {
+            put(NEWLINE.charAt(k));
+        }
+    }
+
+    /** Handle the end of the current input line. */
+    private void endLine() {
+        if (_state == SETTING) {
+            _main.setUp(_machine, _setting.toString());
+            _started = true;
+            if (Metrics.ENABLED) {
+                Metrics.BLOCKS.increment();
+            }
+        } else {
+            startMessage();
+            if (Metrics.ENABLED) {
+                Metrics.MESSAGES.increment();
+            }
+            writeNewline();
+        }
+        _setting.setLength(0);
+        _group = 0;
+        _state = LINE_START;
+    }
+
+    /** Begin a message line. */
+    private void startMessage() {
+        if (!_started) {
+            throw error("The input might not start with a setting.");
+        }
+        _state = MESSAGE;
+    }
+
+    /** Convert the message characters BUF[START .. END-1] and write them
+     *  out in groups of five. */
+    private void convertRun(char[] buf, int start, int end) {
+        if (_parallel && end - start > _converted.length
+            && _converted.length < PARALLEL_CHUNK) {
+            _converted = new char[PARALLEL_CHUNK];
+        }
+        while (start < end) {
+            int len = Math.min(end - start, _converted.length);
+            long time = Metrics.ENABLED ? System.nanoTime() : 0;
+            int n = _parallel
+                ? _machine.convertParallel(buf, start, len, _converted)
+                : _machine.convert(buf, start, len, _converted);
+            if (Metrics.ENABLED) {
+                Metrics.CONVERT_NANOS.add(System.nanoTime() - time);
+            }
+            for (int k = 0; k < n; k++) {
+                if (_group > 0 && _group % 5 == 0) {
+                    put(' ');
+                }
+                put(_converted[k]);
+                _group++;
+            }
+            start += len;
+        }
+    }
+
+    /** Append C to the output buffer. */
+    private void put(char c) {
+        if (_outLen == _out.length) {
+            drain();
+        }
+        _out[_outLen] = c;
+        _outLen++;
+    }
+
+    /** Write the contents of the output buffer to the output. */
+    private void drain() {
+        long time = Metrics.ENABLED ? System.nanoTime() : 0;
+        try {
+            write(_out, _outLen);
+        } catch (IOException excp) {
+            throw error("could not write output");
+        }
+        if (Metrics.ENABLED) {
+            Metrics.WRITE_NANOS.add(System.nanoTime() - time);
+        }
+        _outLen = 0;
+    }
+
+    /** State at the start of a line, before its first non-blank. */
+    private static final int LINE_START = 0;
+    /** State while reading a setting line. */
+    private static final int SETTING = 1;
+    /** State while reading a message line. */
+    private static final int MESSAGE = 2;
+
+    /** Line terminator written after each message line. */
+    static final String NEWLINE = System.lineSeparator();
+
+    /** Sets up the machine from setting lines. */
+    private final Main _main;
+    /** Machine used for conversion. */
+    private final Machine _machine;
+    /** Destination of converted messages. */
+    private final Writer _output;
+    /** Buffer of converted characters. */
+    private char[] _converted = new char[CHUNK];
+    /** True iff long runs are converted by Machine.convertParallel. */
+    private boolean _parallel;
+    /** Buffer of output not yet written. */
+    private final char[] _out = new char[CHUNK];
+    /** Number of characters in _out. */
+    private int _outLen;
+    /** Text of the current line while it might be a setting line. */
+    private final StringBuilder _setting = new StringBuilder();
+    /** One of LINE_START, SETTING, or MESSAGE. */
+    private int _state = LINE_START;
+    /** True iff a '\n' following a '\r' is to be ignored. */
+    private boolean _skipNewline;
+    /** True iff a setting line has been seen. */
+    private boolean _started;
+    /** Number of letters written to the current output line. */
+    private int _group;
+
+}
@@ -1,20 +1,23 @@
-package enigma;
-
-import ucb.junit.textui;
-
-
-/** The suite of all JUnit tests for the enigma package.
- *  @author Yiwen Feng
- */
-public class UnitTest {
-
-    /** Run the JUnit tests in this package. Add xxxTest.class entries to
-     *  the arguments of runClasses to run other JUnit tests. */
-    public static void main(String[] ignored) {
-        textui.runClasses(PermutationTest.class, MovingRotorTest.class);
-
-    }
-
-}
-
-
+package enigma;
+
+import ucb.junit.textui;
+
+
+/** The suite of all JUnit tests for the enigma package.
+ *  @author Yiwen Feng
+ */
+public class UnitTest {
+
+    /** Run the JUnit tests in this package. Add xxxTest.class entries to
+     *  the arguments of runClasses to run other JUnit tests. */
+    public static void main(String[] ignored) {
+        textui.runClasses(PermutationTest.class, MovingRotorTest.class,
+                          MachineTest.class, AnalyzerTest.class,
+                          MainTest.class, ConfigCacheTest.class,
+                          ServerTest.class);
+
+    }
+
+}
+
+
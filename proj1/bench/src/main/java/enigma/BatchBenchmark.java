@@ -0,0 +1,99 @@
+package enigma;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Throughput of converting many short messages under one key, in a
+ *  batch, on lanes, and one message at a time.  The forks add the Vector
+ *  API module, so that batches and lanes use VectorKernel when vector is
+ *  true, and the scalar loops otherwise.
+ *  @author Yiwen Feng
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class BatchBenchmark {
+
+    /** Value of the system property enigma.vector, which makes batches
+     *  and lanes use VectorKernel if true.  Each value runs in its own
+     *  fork, so it is set before CompiledMachine is loaded. */
+    @Param({ "false", "true" })
+    public String vector;
+
+    /** Number of messages. */
+    @Param({ "16", "1024" })
+    public int messages;
+
+    /** Number of letters in each message. */
+    @Param({ "40", "400" })
+    public int length;
+
+    /** Machine under test. */
+    private Machine _machine;
+    /** Messages converted by each operation. */
+    private String[] _messages;
+    /** One lane per message. */
+    private LaneMachine _lanes;
+    /** Buffers for lane conversions. */
+    private char[][] _bufs;
+
+    /** Build the machine and messages. */
+    @Setup
+    public void setUp() {
+        System.setProperty("enigma.vector", vector);
+        _machine = NavalRotors.machine();
+        _messages = new String[messages];
+        for (int k = 0; k < messages; k++) {
+            _messages[k] = NavalRotors.message(length, k);
+        }
+        _lanes = new LaneMachine(_machine, messages);
+        _bufs = new char[messages][];
+        for (int k = 0; k < messages; k++) {
+            _bufs[k] = _messages[k].replace(" ", "").toCharArray();
+        }
+    }
+
+    /** Return the conversions of the messages through convertEach. */
+    @Benchmark
+    public String[] convertEach() {
+        return _machine.convertEach(_messages);
+    }
+
+    /** Return the conversions of the messages, resetting the rotors
+     *  before each. */
+    @Benchmark
+    public String[] convertOneByOne() {
+        String[] result = new String[_messages.length];
+        for (int k = 0; k < _messages.length; k++) {
+            _machine.setRotors("AXLE");
+            result[k] = _machine.convert(_messages[k]);
+        }
+        return result;
+    }
+
+    /** Return the buffers holding the conversions of the messages, each
+     *  on its own lane, all loaded with the same key. */
+    @Benchmark
+    public char[][] convertLanes() {
+        for (int k = 0; k < messages; k++) {
+            _lanes.load(k, _machine);
+        }
+        _lanes.convert(_bufs, _bufs, messages);
+        return _bufs;
+    }
+
+}
@@ -0,0 +1,30 @@
+package enigma;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/** Runs the enigma benchmarks, always with the GC profiler, so that every
+ *  result reports allocation per operation next to its throughput.
+ *  @author Yiwen Feng
+ */
+public final class Benchmarks {
+
+    /** Run the benchmarks selected by the JMH command-line options
+     *  ARGS. */
+    public static void main(String... args)
+        throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                   .parent(new CommandLineOptions(args))
+                   .addProfiler(GCProfiler.class)
+                   .build()).run();
+    }
+
+    /** Not instantiable. */
+    private Benchmarks() {
+    }
+
+}
@@ -0,0 +1,92 @@
+package enigma;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Throughput of the per-character operations of Permutation, Alphabet
+ *  and Rotor.  Each operation runs over all 26 indices of the alphabet.
+ *  @author Yiwen Feng
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComponentBenchmark {
+
+    /** Naval rotor I's permutation. */
+    private Permutation _perm;
+    /** Naval rotor I, advanced and with a ring setting. */
+    private Rotor _rotor;
+
+    /** Build the objects under test. */
+    @Setup
+    public void setUp() {
+        _perm = NavalRotors.permutation("I");
+        _rotor = new MovingRotor("I", _perm, "Q");
+        _rotor.setRing('F');
+        _rotor.set(7);
+    }
+
+    /** Return the sum of Permutation.permute over all indices. */
+    @Benchmark
+    public int permute() {
+        int sum = 0;
+        for (int i = 0; i < 26; i++) {
+            sum += _perm.permute(i);
+        }
+        return sum;
+    }
+
+    /** Return the sum of Permutation.invert over all indices. */
+    @Benchmark
+    public int invert() {
+        int sum = 0;
+        for (int i = 0; i < 26; i++) {
+            sum += _perm.invert(i);
+        }
+        return sum;
+    }
+
+    /** Return the sum of Alphabet.toInt over all letters. */
+    @Benchmark
+    public int toInt() {
+        int sum = 0;
+        for (char c = 'A'; c <= 'Z'; c++) {
+            sum += TestUtils.UPPER.toInt(c);
+        }
+        return sum;
+    }
+
+    /** Return the sum of Rotor.convertForward over all indices. */
+    @Benchmark
+    public int convertForward() {
+        int sum = 0;
+        for (int i = 0; i < 26; i++) {
+            sum += _rotor.convertForward(i);
+        }
+        return sum;
+    }
+
+    /** Return the sum of Rotor.convertBackward over all indices. */
+    @Benchmark
+    public int convertBackward() {
+        int sum = 0;
+        for (int i = 0; i < 26; i++) {
+            sum += _rotor.convertBackward(i);
+        }
+        return sum;
+    }
+
+}
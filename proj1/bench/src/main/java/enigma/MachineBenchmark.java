@@ -0,0 +1,97 @@
+package enigma;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Throughput of Machine stepping and conversion on the naval rotors, for
+ *  messages of several lengths.
+ *  @author Yiwen Feng
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MachineBenchmark {
+
+    /** Number of letters in the message. */
+    @Param({ "16", "1024", "65536", "1048576" })
+    public int length;
+
+    /** Machine under test. */
+    private Machine _machine;
+    /** Message converted by each operation. */
+    private String _message;
+    /** The message's characters. */
+    private char[] _chars;
+    /** Destination of bulk conversions. */
+    private char[] _out;
+    /** Compiled form of _machine. */
+    private CompiledMachine _compiled;
+
+    /** Build the machine and message. */
+    @Setup
+    public void setUp() {
+        _machine = NavalRotors.machine();
+        _message = NavalRotors.message(length, 61);
+        _chars = _message.toCharArray();
+        _out = new char[_chars.length];
+        _compiled = _machine.compile();
+    }
+
+    /** Advance the machine once. */
+    @Benchmark
+    public void machineAdvance() {
+        _machine.machineAdvance();
+    }
+
+    /** Return the conversion of the message through convert(String). */
+    @Benchmark
+    public String convertString() {
+        return _machine.convert(_message);
+    }
+
+    /** Return the number of characters produced by converting the message
+     *  into a preallocated buffer. */
+    @Benchmark
+    public int convertChars() {
+        return _machine.convert(_chars, 0, _chars.length, _out);
+    }
+
+    /** Return the number of characters produced by setting the rotors
+     *  back to the same setting and converting the message into a
+     *  preallocated buffer, as for many messages sent under one key. */
+    @Benchmark
+    public int convertRekeyed() {
+        _machine.setRotors("AXLE");
+        return _machine.convert(_chars, 0, _chars.length, _out);
+    }
+
+    /** Return the number of characters produced by converting the message
+     *  into a preallocated buffer with a compiled machine. */
+    @Benchmark
+    public int convertCompiled() {
+        return _compiled.convert(_chars, 0, _chars.length, _out, 0);
+    }
+
+    /** Return the number of characters produced by compiling the machine
+     *  and then converting the message, as a caller compiling on demand
+     *  would. */
+    @Benchmark
+    public int compileAndConvert() {
+        return _machine.compile().convert(_chars, 0, _chars.length, _out, 0);
+    }
+
+}
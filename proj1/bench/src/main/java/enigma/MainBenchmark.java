@@ -0,0 +1,95 @@
+package enigma;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** End-to-end throughput of Main on generated configuration and input
+ *  files, in each of its file-to-file modes.  The configuration cache is
+ *  used only by the --cache runs, which load the compiled copy written
+ *  by the first invocation.
+ *  @author Yiwen Feng
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MainBenchmark {
+
+    /** Number of setting blocks in the input. */
+    @Param({ "1", "1000" })
+    public int blocks;
+
+    /** Total number of message letters in the input. */
+    @Param({ "1000000" })
+    public int letters;
+
+    /** Options given to Main, separated by blanks. */
+    @Param({ "--no-cache", "--no-cache --mmap", "--no-cache --parallel",
+             "--cache" })
+    public String options;
+
+    /** Directory holding the generated files. */
+    private Path _dir;
+
+    /** Generate the configuration and input files. */
+    @Setup
+    public void setUp() throws IOException {
+        _dir = Files.createTempDirectory("enigma-bench");
+        Files.writeString(_dir.resolve("naval.conf"), NavalRotors.config());
+        Random random = new Random(61);
+        String[] moving = { "I", "II", "III", "IV", "V", "VI", "VII", "VIII" };
+        StringBuilder input = new StringBuilder();
+        for (int b = 0; b < blocks; b++) {
+            input.append(String.format("* B Beta %s %s %s AAAA (AQ) (BZ)%n",
+                                       moving[b % 8], moving[(b + 3) % 8],
+                                       moving[(b + 5) % 8]));
+            input.append(NavalRotors.message(letters / blocks,
+                                             random.nextLong()));
+            input.append(System.lineSeparator());
+        }
+        Files.write(_dir.resolve("input.txt"),
+                    input.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /** Remove the generated files. */
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(_dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> {
+                p.toFile().delete();
+            });
+        }
+    }
+
+    /** Run Main once over the input, through the entry point that
+     *  reports errors by throwing rather than exiting. */
+    @Benchmark
+    public void main() {
+        String files = String.join(" ", _dir.resolve("naval.conf").toString(),
+                                   _dir.resolve("input.txt").toString(),
+                                   _dir.resolve("output.txt").toString());
+        Main.run((options + " " + files).split(" "));
+    }
+
+}
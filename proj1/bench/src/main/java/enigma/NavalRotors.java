@@ -0,0 +1,78 @@
+package enigma;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static enigma.TestUtils.*;
+
+/** The naval rotor set of TestUtils.NAVALA, assembled for benchmarks.
+ *  @author Yiwen Feng
+ */
+final class NavalRotors {
+
+    /** Notches of the naval moving rotors. */
+    static final String[][] NOTCHES = {
+        { "I", "Q" }, { "II", "E" }, { "III", "V" }, { "IV", "J" },
+        { "V", "Z" }, { "VI", "ZM" }, { "VII", "ZM" }, { "VIII", "ZM" },
+    };
+
+    /** Text of a configuration file describing the naval rotors. */
+    static String config() {
+        StringBuilder result = new StringBuilder(UPPER_STRING + "\n5 3\n");
+        for (String[] rotor : NOTCHES) {
+            result.append(String.format("%s M%s %s%n", rotor[0], rotor[1],
+                                        NAVALA.get(rotor[0])));
+        }
+        for (String name : new String[] { "Beta", "Gamma" }) {
+            result.append(String.format("%s N %s%n", name, NAVALA.get(name)));
+        }
+        for (String name : new String[] { "B", "C" }) {
+            result.append(String.format("%s R %s%n", name, NAVALA.get(name)));
+        }
+        return result.toString();
+    }
+
+    /** Return a new 5-slot, 3-pawl machine holding the naval rotors, set
+     *  up as in the standard example. */
+    static Machine machine() {
+        ArrayList<Rotor> rotors = new ArrayList<>();
+        for (String[] rotor : NOTCHES) {
+            rotors.add(new MovingRotor(rotor[0], permutation(rotor[0]),
+                                       rotor[1]));
+        }
+        rotors.add(new FixedRotor("Beta", permutation("Beta")));
+        rotors.add(new FixedRotor("Gamma", permutation("Gamma")));
+        rotors.add(new Reflector("B", permutation("B")));
+        rotors.add(new Reflector("C", permutation("C")));
+        Machine result = new Machine(UPPER, 5, 3, rotors);
+        result.insertRotors(new String[] { "B", "Beta", "III", "IV", "I" });
+        result.setRotors("AXLE");
+        result.setPlugboard(permutation("(HQ) (EX) (IP) (TR) (BY)"));
+        return result;
+    }
+
+    /** Return the permutation of the naval rotor NAME, or the permutation
+     *  with cycles NAME if there is no such rotor. */
+    static Permutation permutation(String name) {
+        return new Permutation(NAVALA.getOrDefault(name, name), UPPER);
+    }
+
+    /** Return LENGTH random upper-case letters, with a blank after every
+     *  fifth, generated from SEED. */
+    static String message(int length, long seed) {
+        Random random = new Random(seed);
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0 && i % 5 == 0) {
+                result.append(' ');
+            }
+            result.append(UPPER_STRING.charAt(random.nextInt(26)));
+        }
+        return result.toString();
+    }
+
+    /** Not instantiable. */
+    private NavalRotors() {
+    }
+
+}
@@ -0,0 +1,99 @@
+package enigma;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/** The ConversionKernel using the Vector API, which passes the values of
+ *  several characters through the rotors at once, with one gather from
+ *  the rotor tables per rotor.  The API lives in the incubator module
+ *  jdk.incubator.vector, which must be added with --add-modules both to
+ *  compile this class and to use it, so this class is compiled only with
+ *  the benchmarks.  CompiledMachine loads it when the system property
+ *  enigma.vector is true, and falls back to its scalar loops if it is
+ *  missing or the module was not added.
+ *  @author Yiwen Feng
+ */
+final class VectorKernel implements ConversionKernel {
+
+    /** Shape of the vectors used. */
+    private static final VectorSpecies<Integer> SPECIES =
+        IntVector.SPECIES_PREFERRED;
+
+    /** Number of values converted at once. */
+    private static final int LENGTH = SPECIES.length();
+
+    /** A kernel converting vectors of the preferred shape. */
+    VectorKernel() {
+    }
+
+    @Override
+    public int length() {
+        return LENGTH;
+    }
+
+    @Override
+    public int rotate(int[] forward, int[] backward, int[][] base,
+                      int right, int[] value, int[] active, int live,
+                      int[] index) {
+        return rotateAll(forward, backward, base, right, value, active, live,
+                         index);
+    }
+
+    @Override
+    public int mapping(int[] plugboard, int[] forward, int[] backward,
+                       int[] base, int right, int[] row, int[] index) {
+        return mapAll(plugboard, forward, backward, base, right, row, index);
+    }
+
+    /** As for rotate(FORWARD, BACKWARD, BASE, RIGHT, VALUE, ACTIVE, LIVE,
+     *  INDEX).  The loops are static methods because the JDK 17 server
+     *  compiler has crashed compiling them as instance methods. */
+    private static int rotateAll(int[] forward, int[] backward, int[][] base,
+                                 int right, int[] value, int[] active,
+                                 int live, int[] index) {
+        int upper = SPECIES.loopBound(live);
+        for (int m = 0; m < upper; m += LENGTH) {
+            IntVector v = IntVector.fromArray(SPECIES, value, 0, active, m);
+            for (int s = right; s >= 0; s--) {
+                v = lookup(forward, IntVector.fromArray(SPECIES, base[s], 0,
+                                                        active, m).add(v),
+                           index);
+            }
+            for (int s = 1; s <= right; s++) {
+                v = lookup(backward, IntVector.fromArray(SPECIES, base[s], 0,
+                                                         active, m).add(v),
+                           index);
+            }
+            v.intoArray(value, 0, active, m);
+        }
+        return upper;
+    }
+
+    /** As for mapping(PLUGBOARD, FORWARD, BACKWARD, BASE, RIGHT, ROW,
+     *  INDEX). */
+    private static int mapAll(int[] plugboard, int[] forward,
+                              int[] backward, int[] base, int right,
+                              int[] row, int[] index) {
+        int upper = SPECIES.loopBound(plugboard.length);
+        for (int p = 0; p < upper; p += LENGTH) {
+            IntVector v = IntVector.fromArray(SPECIES, plugboard, p);
+            for (int s = right; s >= 0; s--) {
+                v = lookup(forward, v.add(base[s]), index);
+            }
+            for (int s = 1; s <= right; s++) {
+                v = lookup(backward, v.add(base[s]), index);
+            }
+            lookup(plugboard, v, index).intoArray(row, p);
+        }
+        return upper;
+    }
+
+    /** Return the elements of TABLE at the indices in OFFSETS, using
+     *  INDEX to hold them. */
+    private static IntVector lookup(int[] table, IntVector offsets,
+                                    int[] index) {
+        offsets.intoArray(index, 0);
+        return IntVector.fromArray(SPECIES, table, 0, index, 0);
+    }
+
+}